@@ -0,0 +1,72 @@
+import java.math.BigDecimal;
+
+import static java.math.BigDecimal.ZERO;
+
+/**
+ * Limits applied to the operations of an account. A policy is immutable and can be shared between accounts, its
+ * limits are kept in the form they are compared with, so checking an operation only compares amounts.
+ */
+public final class AccountPolicy {
+
+    /**
+     * Policy of a new account : no overdraft and no limit
+     */
+    public static final AccountPolicy DEFAULT = new AccountPolicy(ZERO, null, null);
+
+    /**
+     * Lowest balance allowed, the opposite of the overdraft limit
+     */
+    final BigDecimal lowestBalance;
+
+    /**
+     * Highest amount of the withdrawals of a day, null if unlimited
+     */
+    final BigDecimal dailyWithdrawalCap;
+
+    /**
+     * Highest balance allowed, null if unlimited
+     */
+    final BigDecimal maxBalance;
+
+    /**
+     * @param overdraftLimit     How much the balance may go below zero
+     * @param dailyWithdrawalCap Highest amount of the withdrawals of a day, null if unlimited
+     * @param maxBalance         Highest balance allowed, null if unlimited
+     * @throws IllegalArgumentException If a limit is negative or the overdraft limit is null
+     */
+    public AccountPolicy(BigDecimal overdraftLimit, BigDecimal dailyWithdrawalCap, BigDecimal maxBalance) {
+        if (overdraftLimit == null || overdraftLimit.signum() < 0) {
+            throw new IllegalArgumentException("Unable to create a policy : Wrong overdraft limit");
+        }
+        if (dailyWithdrawalCap != null && dailyWithdrawalCap.signum() < 0) {
+            throw new IllegalArgumentException("Unable to create a policy : Negative daily withdrawal cap");
+        }
+        if (maxBalance != null && maxBalance.signum() < 0) {
+            throw new IllegalArgumentException("Unable to create a policy : Negative maximum balance");
+        }
+        this.lowestBalance = overdraftLimit.negate();
+        this.dailyWithdrawalCap = dailyWithdrawalCap;
+        this.maxBalance = maxBalance;
+    }
+
+    /**
+     * @return How much the balance may go below zero
+     */
+    public BigDecimal getOverdraftLimit() {
+        return lowestBalance.negate();
+    }
+
+    /**
+     * @return The highest amount of the withdrawals of a day, null if unlimited
+     */
+    public BigDecimal getDailyWithdrawalCap() {
+        return dailyWithdrawalCap;
+    }
+
+    /**
+     * @return The highest balance allowed, null if unlimited
+     */
+    public BigDecimal getMaxBalance() {
+        return maxBalance;
+    }
+}
@@ -1,4 +1,6 @@
 import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
 
 /**
  * Defines what operations to do in a bank
@@ -12,9 +14,22 @@ public interface Bank {
      * @param money   How much you want to dispose
      * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client
      *                                  or the money is negative
+     * @throws IllegalStateException    If the balance would exceed the maximum balance of the account policy
      */
     void deposit(BankClient client, BankAccount account, BigDecimal money);
 
+    /**
+     * Make a deposit of money in another currency than the account one
+     *
+     * @param account  The account
+     * @param money    How much you want to dispose
+     * @param currency The currency of the money, it is converted to the currency of the account
+     * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client,
+     *                                  the money is negative or the exchange rate is unknown
+     * @throws IllegalStateException    If the balance would exceed the maximum balance of the account policy
+     */
+    void deposit(BankClient client, BankAccount account, BigDecimal money, Currency currency);
+
     /**
      * Make a withdrawal
      *
@@ -23,11 +38,55 @@ public interface Bank {
      * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client
      *                                  or the money is negative
      * @throws IllegalStateException    If the amount of the account is insufficient in comparison to the wanted amount
+     *                                  (overdraft included) or the daily withdrawal cap of the account is reached
      */
     void withdrawal(BankClient client, BankAccount account, BigDecimal money);
 
     /**
-     * Create an account
+     * Make a withdrawal of money in another currency than the account one
+     *
+     * @param account  The account
+     * @param money    How much you want to withdrawal
+     * @param currency The currency of the money, it is converted to the currency of the account
+     * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client,
+     *                                  the money is negative or the exchange rate is unknown
+     * @throws IllegalStateException    If the amount of the account is insufficient in comparison to the wanted amount
+     *                                  (overdraft included) or the daily withdrawal cap of the account is reached
+     */
+    void withdrawal(BankClient client, BankAccount account, BigDecimal money, Currency currency);
+
+    /**
+     * Make a transfer between two accounts, the withdrawal and the deposit are done atomically
+     *
+     * @param fromClient  The client who owns the debited account
+     * @param fromAccount The debited account
+     * @param toClient    The client who owns the credited account
+     * @param toAccount   The credited account
+     * @param money       How much you want to transfer, in the currency of the debited account. It is converted to
+     *                    the currency of the credited account
+     * @throws IllegalArgumentException If a client is unknown from this bank, an account is unknown from its client,
+     *                                  both accounts are the same, the money is negative or the exchange rate is
+     *                                  unknown
+     * @throws IllegalStateException    If the amount of the debited account is insufficient in comparison to the wanted
+     *                                  amount (overdraft included), the daily withdrawal cap of the debited account is
+     *                                  reached or the balance of the credited account would exceed its maximum balance
+     */
+    void transfer(BankClient fromClient, BankAccount fromAccount, BankClient toClient, BankAccount toAccount,
+                  BigDecimal money);
+
+    /**
+     * Set the limits of the operations of an account, they apply to the next operations
+     *
+     * @param client  The client who owns the account
+     * @param account The account
+     * @param policy  The limits
+     * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client
+     *                                  or the policy is null
+     */
+    void setAccountPolicy(BankClient client, BankAccount account, AccountPolicy policy);
+
+    /**
+     * Create an account in the default currency of the bank
      *
      * @param client the client who wants to create an account
      * @return A new account
@@ -35,10 +94,31 @@ public interface Bank {
      */
     BankAccount createAccount(BankClient client);
 
+    /**
+     * Create an account in a given currency
+     *
+     * @param client   the client who wants to create an account
+     * @param currency the currency of the account
+     * @return A new account
+     * @throws IllegalArgumentException If the client is unknown from this bank or the currency is null
+     */
+    BankAccount createAccount(BankClient client, Currency currency);
+
     /**
      * Create a new empty client
      *
      * @return a new client
      */
     BankClient createClient();
+
+    /**
+     * Create many clients at once, each one with accounts in the default currency of the bank.
+     * It is faster than creating them one by one since the internal structures are sized once
+     *
+     * @param clientCount       the number of clients
+     * @param accountsPerClient the number of accounts of each client
+     * @return the new clients
+     * @throws IllegalArgumentException If a count is negative
+     */
+    List<BankClient> createClients(int clientCount, int accountsPerClient);
 }
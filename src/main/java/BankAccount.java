@@ -1,16 +1,30 @@
 import java.math.BigDecimal;
+import java.util.Currency;
 
 /**
  * Defines what operations to do with an account
  */
 public interface BankAccount {
 
+    /**
+     * Identifier of the account, the one of its events
+     * @return An identifier unique in the bank
+     */
+    long getId();
+
     /**
      * Check balance of the account
-     * @return A positive amont
+     * @return The amount in the currency of the account, negative down to the overdraft allowed by the account policy.
+     * The amounts held by prepared transfers are not deducted
      */
     BigDecimal getBalance();
 
+    /**
+     * Currency of the account
+     * @return The currency of the balance and of the operations
+     */
+    Currency getCurrency();
+
     /**
      * Get operations
      * @return A string with a description of operations
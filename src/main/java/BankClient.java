@@ -5,6 +5,12 @@ import java.util.List;
  */
 public interface BankClient {
 
+    /**
+     * Identifier of the client, the one of the events of its accounts
+     * @return An identifier unique in the bank
+     */
+    long getId();
+
     /**
      * Give all the accounts of this client
      * @return A list containing all of the clients accounts
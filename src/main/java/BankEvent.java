@@ -0,0 +1,91 @@
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Date;
+
+/**
+ * Change made on an account, published by a bank to the subscribers of its {@link BankEventStream}
+ */
+public final class BankEvent {
+
+    /**
+     * Kind of change
+     */
+    public enum Type {
+        ACCOUNT_CREATED, DEPOSIT, WITHDRAWAL
+    }
+
+    private final Type type;
+    private final long clientId;
+    private final long accountId;
+    private final long sequence;
+    private final Currency currency;
+    /**
+     * Date of the change in milliseconds, the given date may be changed afterwards by its owner
+     */
+    private final long dateMillis;
+    private final BigDecimal amount;
+    private final BigDecimal balance;
+
+    /**
+     * @param type      Kind of change
+     * @param clientId  Identifier of the client owning the account
+     * @param accountId Identifier of the account
+     * @param sequence  Number of the change on its account, the events of an account are published in this order
+     * @param currency  Currency of the account, of the amount and of the balance
+     * @param date      Date of the change
+     * @param amount    Amount of the operation, zero for a creation
+     * @param balance   Balance of the account after the change
+     */
+    public BankEvent(Type type, long clientId, long accountId, long sequence, Currency currency, Date date,
+                     BigDecimal amount, BigDecimal balance) {
+        this.type = type;
+        this.clientId = clientId;
+        this.accountId = accountId;
+        this.sequence = sequence;
+        this.currency = currency;
+        this.dateMillis = date.getTime();
+        this.amount = amount;
+        this.balance = balance;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getClientId() {
+        return clientId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return The number of the change on its account, 0 for the creation
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Date getDate() {
+        return new Date(dateMillis);
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    @Override
+    public String toString() {
+        return type + " client=" + clientId + " account=" + accountId + "#" + sequence + " date=" + dateMillis
+                + " amount=" + amount + " balance=" + balance + " " + currency;
+    }
+}
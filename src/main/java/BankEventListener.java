@@ -0,0 +1,16 @@
+import java.util.List;
+
+/**
+ * Consumer of the events of a {@link BankEventStream}
+ */
+@FunctionalInterface
+public interface BankEventListener {
+
+    /**
+     * Receive a batch of events, in the order they were published.
+     * The list is reused for the next batch : it must be copied if it is kept after the call
+     *
+     * @param events The events, never empty
+     */
+    void onEvents(List<BankEvent> events);
+}
@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process publish/subscribe stream of the changes made on the accounts of a bank.
+ * Each subscriber gets its own bounded buffer, drained by its own thread which hands the events to the listener by
+ * batches, so a slow subscriber never delays the other ones. When a buffer is full the overflow policy of the
+ * subscriber applies : the writer either waits for room or drops the event.
+ * <p>
+ * The banks publish outside of their account locks, so a listener may call back into the bank, even when it blocks
+ * writers. A listener may also write to the bank, but the events it publishes itself to its own full buffer cannot
+ * wait for room, since only its own thread makes room : they are dropped and counted, whatever the overflow policy.
+ */
+public class BankEventStream {
+
+    /**
+     * What to do when the buffer of a subscriber is full
+     */
+    public enum Overflow {
+        /**
+         * The writer waits until the subscriber makes room or closes its subscription, no event is lost while it is
+         * open, except the ones the listener publishes itself when its buffer is full
+         */
+        BLOCK,
+        /**
+         * The event is dropped and counted, the writer never waits
+         */
+        DROP
+    }
+
+    private static final Subscription[] NO_SUBSCRIPTION = new Subscription[0];
+
+    /**
+     * How long a blocked writer waits before checking again that the subscription is still open
+     */
+    private static final long CLOSED_CHECK_MILLIS = 50;
+
+    /**
+     * Current subscriptions, replaced on each change so that publishing never locks
+     */
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTION;
+
+    /**
+     * Check if someone listens to this stream, to avoid building events nobody will read
+     *
+     * @return true if there is at least one subscriber
+     */
+    public boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    /**
+     * Publish an event to every subscriber
+     *
+     * @param event The event
+     */
+    public void publish(BankEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Subscribe to the events published from now on
+     *
+     * @param listener   The consumer of the events
+     * @param bufferSize Number of events which can wait for the listener
+     * @param batchSize  Highest number of events given at once to the listener
+     * @param overflow   What to do when the buffer is full
+     * @return The subscription, to be closed when the events are not needed anymore
+     * @throws IllegalArgumentException If the listener or the policy is null, or a size is not positive
+     */
+    public Subscription subscribe(BankEventListener listener, int bufferSize, int batchSize, Overflow overflow) {
+        if (listener == null || overflow == null) {
+            throw new IllegalArgumentException("Unable to subscribe : Null listener or overflow policy");
+        }
+        if (bufferSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Unable to subscribe : Sizes must be positive");
+        }
+        Subscription subscription = new Subscription(listener, bufferSize, batchSize, overflow);
+        synchronized (this) {
+            Subscription[] current = subscriptions;
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            subscriptions = updated;
+        }
+        subscription.dispatcher.start();
+        return subscription;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        List<Subscription> updated = new ArrayList<>(Arrays.asList(subscriptions));
+        updated.remove(subscription);
+        subscriptions = updated.toArray(NO_SUBSCRIPTION);
+    }
+
+    /**
+     * Subscription to a stream, its events are delivered by a dedicated thread
+     */
+    public class Subscription implements AutoCloseable {
+        private final BankEventListener listener;
+        private final BlockingQueue<BankEvent> buffer;
+        private final int batchSize;
+        private final Overflow overflow;
+        private final Thread dispatcher;
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscription(BankEventListener listener, int bufferSize, int batchSize, Overflow overflow) {
+            this.listener = listener;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.batchSize = batchSize;
+            this.overflow = overflow;
+            this.dispatcher = new Thread(this::dispatch, "bank-events");
+            this.dispatcher.setDaemon(true);
+        }
+
+        private void offer(BankEvent event) {
+            if (closed) {
+                return;
+            }
+            // The dispatcher thread is the only one making room, it would wait for itself forever
+            if (overflow == Overflow.DROP || Thread.currentThread() == dispatcher) {
+                if (!buffer.offer(event)) {
+                    dropped.incrementAndGet();
+                }
+                return;
+            }
+            try {
+                // A writer which took the subscriptions before a close must not wait for a dispatcher which is gone
+                while (!closed) {
+                    if (buffer.offer(event, CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+            }
+        }
+
+        private void dispatch() {
+            List<BankEvent> batch = new ArrayList<>(batchSize);
+            try {
+                while (!closed) {
+                    batch.add(buffer.take());
+                    buffer.drainTo(batch, batchSize - 1);
+                    try {
+                        listener.onEvents(batch);
+                    } catch (RuntimeException e) {
+                        // A failing listener must not stop the delivery of the next events
+                        failures.incrementAndGet();
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Closed
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return The number of events lost because the buffer was full
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * @return The number of batches for which the listener raised an exception
+         */
+        public long getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * Stop the delivery, the events still in the buffer are discarded as well as the ones of the writers still
+         * waiting for room
+         */
+        @Override
+        public void close() {
+            closed = true;
+            remove(this);
+            dispatcher.interrupt();
+            // Wake up a blocked writer
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,495 @@
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workload driver for a {@link Bank} : several threads make deposits, withdrawals and transfers on a population of
+ * clients and accounts, the accounts being chosen with a zipfian skew.
+ * At the end of the run, the throughput, the latency percentiles and the invariants of the bank are reported :
+ * the sum of the balances must be equal to the net deposits and no balance may be negative. An operation failing
+ * with anything else than a refusal is counted as an error, it makes the run inconsistent since its effect is unknown.
+ * <p>
+ * It can be run with maven, for instance :
+ * {@code mvn compile exec:java -Dexec.args="threads=8 clients=1000 accounts=2 seconds=60 theta=0.99"}
+ */
+public class BankLoadGenerator {
+
+    /**
+     * Amounts are generated in cents
+     */
+    private static final int AMOUNT_SCALE = 2;
+
+    private int clients = 100;
+    private int accountsPerClient = 2;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long operationsPerThread = 100_000;
+    private long durationSeconds = 0;
+    private int depositPercent = 40;
+    private int withdrawalPercent = 30;
+    private int transferPercent = 30;
+    private double theta = 0.99;
+    private long maxAmountCents = 100_00;
+    private long seed = 42;
+
+    /**
+     * @param clients Number of clients to create
+     * @return this generator
+     */
+    public BankLoadGenerator clients(int clients) {
+        this.clients = clients;
+        return this;
+    }
+
+    /**
+     * @param accountsPerClient Number of accounts to create for each client
+     * @return this generator
+     */
+    public BankLoadGenerator accountsPerClient(int accountsPerClient) {
+        this.accountsPerClient = accountsPerClient;
+        return this;
+    }
+
+    /**
+     * @param threads Number of threads making operations
+     * @return this generator
+     */
+    public BankLoadGenerator threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param operationsPerThread Number of operations made by each thread, used when no duration is set
+     * @return this generator
+     */
+    public BankLoadGenerator operationsPerThread(long operationsPerThread) {
+        this.operationsPerThread = operationsPerThread;
+        return this;
+    }
+
+    /**
+     * @param durationSeconds Duration of the run (soak test), 0 to run a fixed number of operations
+     * @return this generator
+     */
+    public BankLoadGenerator durationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+        return this;
+    }
+
+    /**
+     * @param deposit    Weight of the deposits
+     * @param withdrawal Weight of the withdrawals
+     * @param transfer   Weight of the transfers
+     * @return this generator
+     */
+    public BankLoadGenerator mix(int deposit, int withdrawal, int transfer) {
+        this.depositPercent = deposit;
+        this.withdrawalPercent = withdrawal;
+        this.transferPercent = transfer;
+        return this;
+    }
+
+    /**
+     * @param theta Skew of the accounts, 0 for uniform
+     * @return this generator
+     */
+    public BankLoadGenerator theta(double theta) {
+        this.theta = theta;
+        return this;
+    }
+
+    /**
+     * @param maxAmountCents Highest amount of an operation, in cents
+     * @return this generator
+     */
+    public BankLoadGenerator maxAmountCents(long maxAmountCents) {
+        this.maxAmountCents = maxAmountCents;
+        return this;
+    }
+
+    /**
+     * @param seed Seed of the random sources, so that the operations of each thread can be reproduced. Their
+     *             interleaving depends on the scheduling of the threads, a run of a single thread is reproduced whole
+     * @return this generator
+     */
+    public BankLoadGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Run the workload against a bank
+     *
+     * @param bank An empty bank
+     * @return The report of the run
+     * @throws IllegalArgumentException If the settings are inconsistent
+     * @throws IllegalStateException    If the run is interrupted
+     */
+    public Report run(Bank bank) {
+        checkSettings();
+
+        // Creating the population, sorted by account identifier : the order of the accounts of a client is not
+        // defined, and the zipfian ranks must fall on the same accounts from a run to the other
+        Map<BankAccount, BankClient> owned = new HashMap<>();
+        for (BankClient client : bank.createClients(clients, accountsPerClient)) {
+            for (BankAccount account : client.getAccounts()) {
+                owned.put(account, client);
+            }
+        }
+        List<BankAccount> accounts = new ArrayList<>(owned.keySet());
+        accounts.sort(Comparator.comparingLong(BankAccount::getId));
+        List<BankClient> owners = new ArrayList<>(accounts.size());
+        for (BankAccount account : accounts) {
+            owners.add(owned.get(account));
+        }
+
+        ZipfianGenerator zipfian = new ZipfianGenerator(accounts.size(), theta);
+        Worker[] workers = new Worker[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch end = new CountDownLatch(threads);
+        long duration = durationSeconds > 0 ? TimeUnit.SECONDS.toNanos(durationSeconds) : 0;
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(bank, owners, accounts, zipfian, new Random(seed + i), start, end, duration);
+            Thread thread = new Thread(workers[i], "bank-load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            end.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unable to run the workload : Interrupted", e);
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        // Merging the results of each worker
+        Report report = new Report(elapsed);
+        for (Worker worker : workers) {
+            report.latencies.merge(worker.latencies);
+            report.deposits += worker.deposits;
+            report.withdrawals += worker.withdrawals;
+            report.transfers += worker.transfers;
+            report.rejected += worker.rejected;
+            report.errors += worker.errors;
+            report.negativeBalances += worker.negativeBalances;
+        }
+
+        // Checking the invariants
+        BigDecimal total = BigDecimal.ZERO;
+        for (BankAccount account : accounts) {
+            BigDecimal balance = account.getBalance();
+            if (balance.signum() < 0) {
+                report.negativeBalances++;
+            }
+            total = total.add(balance);
+        }
+        report.totalBalance = total;
+        report.netDeposits = BigDecimal.valueOf(netCents(workers), AMOUNT_SCALE);
+        return report;
+    }
+
+    private static long netCents(Worker[] workers) {
+        long net = 0;
+        for (Worker worker : workers) {
+            net += worker.netCents;
+        }
+        return net;
+    }
+
+    private void checkSettings() {
+        if (clients <= 0 || accountsPerClient <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Unable to run the workload : Clients, accounts and threads must be positive");
+        }
+        if (depositPercent < 0 || withdrawalPercent < 0 || transferPercent < 0
+                || depositPercent + withdrawalPercent + transferPercent == 0) {
+            throw new IllegalArgumentException("Unable to run the workload : Wrong operation mix");
+        }
+        if (transferPercent > 0 && clients * accountsPerClient < 2) {
+            throw new IllegalArgumentException("Unable to run the workload : Transfers need two accounts");
+        }
+        if (maxAmountCents <= 0) {
+            throw new IllegalArgumentException("Unable to run the workload : Wrong maximum amount");
+        }
+    }
+
+    /**
+     * Thread making the operations, its counters are only read once it is done
+     */
+    private class Worker implements Runnable {
+        private final Bank bank;
+        private final List<BankClient> owners;
+        private final List<BankAccount> accounts;
+        private final ZipfianGenerator zipfian;
+        private final Random random;
+        private final CountDownLatch start;
+        private final CountDownLatch end;
+        private final long duration;
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long deposits;
+        private long withdrawals;
+        private long transfers;
+        private long rejected;
+        private long errors;
+        private long negativeBalances;
+        private long netCents;
+
+        private Worker(Bank bank, List<BankClient> owners, List<BankAccount> accounts, ZipfianGenerator zipfian,
+                       Random random, CountDownLatch start, CountDownLatch end, long duration) {
+            this.bank = bank;
+            this.owners = owners;
+            this.accounts = accounts;
+            this.zipfian = zipfian;
+            this.random = random;
+            this.start = start;
+            this.end = end;
+            this.duration = duration;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                long begin = System.nanoTime();
+                for (long i = 0; duration > 0 ? System.nanoTime() - begin < duration : i < operationsPerThread; i++) {
+                    operate();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                end.countDown();
+            }
+        }
+
+        private void operate() {
+            int index = zipfian.next(random);
+            BankClient client = owners.get(index);
+            BankAccount account = accounts.get(index);
+            long cents = 1 + (long) (random.nextDouble() * maxAmountCents);
+            BigDecimal money = BigDecimal.valueOf(Math.min(cents, maxAmountCents), AMOUNT_SCALE);
+            int choice = random.nextInt(depositPercent + withdrawalPercent + transferPercent);
+
+            long begin = System.nanoTime();
+            try {
+                if (choice < depositPercent) {
+                    bank.deposit(client, account, money);
+                    deposits++;
+                    netCents += money.unscaledValue().longValue();
+                } else if (choice < depositPercent + withdrawalPercent) {
+                    bank.withdrawal(client, account, money);
+                    withdrawals++;
+                    netCents -= money.unscaledValue().longValue();
+                } else {
+                    int target = zipfian.next(random);
+                    if (target == index) {
+                        target = (index + 1) % accounts.size();
+                    }
+                    bank.transfer(client, account, owners.get(target), accounts.get(target), money);
+                    transfers++;
+                }
+            } catch (IllegalStateException e) {
+                // Insufficient balance, expected with a random workload
+                rejected++;
+            } catch (RuntimeException e) {
+                // Unexpected failure of the engine, the worker goes on so that the run still completes
+                errors++;
+            } finally {
+                latencies.record(System.nanoTime() - begin);
+            }
+            if (account.getBalance().signum() < 0) {
+                negativeBalances++;
+            }
+        }
+    }
+
+    /**
+     * Result of a run
+     */
+    public static class Report {
+        private final long elapsedNanos;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long deposits;
+        private long withdrawals;
+        private long transfers;
+        private long rejected;
+        private long errors;
+        private long negativeBalances;
+        private BigDecimal totalBalance;
+        private BigDecimal netDeposits;
+
+        private Report(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The number of operations, rejected ones included
+         */
+        public long getOperations() {
+            return latencies.getCount();
+        }
+
+        /**
+         * @return The number of operations per second
+         */
+        public double getThroughput() {
+            return getOperations() * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        /**
+         * @return The latencies of the operations, in nanoseconds
+         */
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        public long getDeposits() {
+            return deposits;
+        }
+
+        public long getWithdrawals() {
+            return withdrawals;
+        }
+
+        public long getTransfers() {
+            return transfers;
+        }
+
+        /**
+         * @return The number of operations rejected because of an insufficient balance
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return The number of operations which failed with an unexpected exception
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return The number of times a negative balance was observed
+         */
+        public long getNegativeBalances() {
+            return negativeBalances;
+        }
+
+        /**
+         * @return The sum of the balances at the end of the run
+         */
+        public BigDecimal getTotalBalance() {
+            return totalBalance;
+        }
+
+        /**
+         * @return The sum of the deposits minus the sum of the withdrawals
+         */
+        public BigDecimal getNetDeposits() {
+            return netDeposits;
+        }
+
+        /**
+         * @return true if no operation failed unexpectedly, the sum of the balances is the net deposits and no balance
+         * was negative
+         */
+        public boolean isConsistent() {
+            return errors == 0 && negativeBalances == 0 && totalBalance.compareTo(netDeposits) == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "operations=%d (deposits=%d withdrawals=%d transfers=%d rejected=%d errors=%d) in %.3f s%n"
+                            + "throughput=%.0f ops/s%n"
+                            + "latency p50=%d ns p90=%d ns p99=%d ns p99.9=%d ns max=%d ns%n"
+                            + "total balance=%s net deposits=%s negative balances=%d -> %s",
+                    getOperations(), deposits, withdrawals, transfers, rejected, errors, elapsedNanos / 1e9,
+                    getThroughput(),
+                    latencies.percentile(50), latencies.percentile(90), latencies.percentile(99),
+                    latencies.percentile(99.9), latencies.getMax(),
+                    totalBalance, netDeposits, negativeBalances, isConsistent() ? "CONSISTENT" : "INCONSISTENT");
+        }
+    }
+
+    /**
+     * Run a workload from the command line.
+     * Arguments are key=value pairs : clients, accounts, threads, ops, seconds, deposit, withdrawal, transfer,
+     * theta, maxCents, seed, engine (class name of a Bank with a DateFactory constructor, SGBank by default) and
+     * shards (number of engines behind a {@link ShardedBank}, 0 to use a single engine, the engine must then be a
+     * {@link TransferParticipant})
+     *
+     * @param args The settings
+     * @throws ReflectiveOperationException If the engine cannot be created
+     */
+    public static void main(String[] args) throws ReflectiveOperationException {
+        BankLoadGenerator generator = new BankLoadGenerator();
+        String engine = SGBank.class.getName();
+        int shards = 0;
+        int deposit = generator.depositPercent;
+        int withdrawal = generator.withdrawalPercent;
+        int transfer = generator.transferPercent;
+
+        for (String arg : args) {
+            String[] setting = arg.split("=", 2);
+            if (setting.length != 2) {
+                throw new IllegalArgumentException("Unable to run the workload : Wrong argument " + arg);
+            }
+            String value = setting[1];
+            switch (setting[0]) {
+                case "clients": generator.clients(Integer.parseInt(value)); break;
+                case "accounts": generator.accountsPerClient(Integer.parseInt(value)); break;
+                case "threads": generator.threads(Integer.parseInt(value)); break;
+                case "ops": generator.operationsPerThread(Long.parseLong(value)); break;
+                case "seconds": generator.durationSeconds(Long.parseLong(value)); break;
+                case "deposit": deposit = Integer.parseInt(value); break;
+                case "withdrawal": withdrawal = Integer.parseInt(value); break;
+                case "transfer": transfer = Integer.parseInt(value); break;
+                case "theta": generator.theta(Double.parseDouble(value)); break;
+                case "maxCents": generator.maxAmountCents(Long.parseLong(value)); break;
+                case "seed": generator.seed(Long.parseLong(value)); break;
+                case "engine": engine = value; break;
+                case "shards": shards = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unable to run the workload : Unknown setting " + setting[0]);
+            }
+        }
+        generator.mix(deposit, withdrawal, transfer);
+
+        // The shards of a sharded bank take part in its cross-shard transfers
+        Class<? extends Bank> engineClass = shards > 0
+                ? Class.forName(engine).asSubclass(TransferParticipant.class)
+                : Class.forName(engine).asSubclass(Bank.class);
+        Constructor<? extends Bank> constructor = engineClass.getConstructor(DateFactory.class);
+        DateFactory dateFactory = Date::new;
+        Bank bank;
+        if (shards > 0) {
+            List<TransferParticipant> engines = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                engines.add((TransferParticipant) constructor.newInstance(dateFactory));
+            }
+            bank = new ShardedBank(engines);
+        } else {
+            bank = constructor.newInstance(dateFactory);
+        }
+
+        Report report = generator.run(bank);
+        System.out.println(engine + (shards > 0 ? " x " + shards + " shards" : ""));
+        System.out.println(report);
+        if (!report.isConsistent()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * History keeping the operations as compressed blocks instead of formatted strings, they are only formatted when
+ * printed. Each operation is encoded as :
+ * <ul>
+ * <li>a flags byte : deposit or withdrawal, new amount scale, amount too big for a long, explicit balance</li>
+ * <li>the delta from the date of the previous operation, as a zigzag varint</li>
+ * <li>the scale of the amount as a zigzag varint, only if it differs from the previous one</li>
+ * <li>the unscaled amount as a varint (or its length and bytes when it does not fit in a long)</li>
+ * </ul>
+ * The balance is not stored : it is recomputed by replaying the amounts from the balance at the start of the block.
+ * Once a block holds {@link #BLOCK_OPERATIONS} operations it is sealed to a byte array of its exact size.
+ * This class is not thread safe, it is guarded by its account.
+ */
+public class CompressedOperationHistory implements OperationHistory {
+
+    /**
+     * Number of operations of a sealed block
+     */
+    static final int BLOCK_OPERATIONS = 128;
+
+    private static final int DEPOSIT_FLAG = 1;
+    private static final int SCALE_FLAG = 1 << 1;
+    private static final int BIG_AMOUNT_FLAG = 1 << 2;
+    private static final int BALANCE_FLAG = 1 << 3;
+
+    private final Formatter formatter;
+
+    /**
+     * Sealed blocks, oldest first
+     */
+    private final List<Block> blocks = new ArrayList<>();
+
+    /**
+     * Block being filled
+     */
+    private byte[] data = new byte[32];
+    private int length;
+    private int count;
+    private long baseDate;
+    private BigDecimal baseBalance = BigDecimal.ZERO;
+
+    /**
+     * State after the last operation
+     */
+    private long lastDate;
+    private int lastScale;
+    private BigDecimal lastBalance = BigDecimal.ZERO;
+
+    /**
+     * @param formatter Describes the operations when printed
+     */
+    public CompressedOperationHistory(Formatter formatter) {
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void add(boolean deposit, long date, BigDecimal amount, BigDecimal balance) {
+        if (count == BLOCK_OPERATIONS) {
+            seal();
+        }
+
+        BigInteger unscaled = amount.unscaledValue();
+        boolean bigAmount = unscaled.signum() < 0 || unscaled.bitLength() > 63;
+        // The balance is implied by the amount unless it was computed otherwise
+        BigDecimal impliedBalance = deposit ? lastBalance.add(amount) : lastBalance.subtract(amount);
+        boolean explicitBalance = !impliedBalance.equals(balance);
+
+        int flags = (deposit ? DEPOSIT_FLAG : 0)
+                | (amount.scale() != lastScale ? SCALE_FLAG : 0)
+                | (bigAmount ? BIG_AMOUNT_FLAG : 0)
+                | (explicitBalance ? BALANCE_FLAG : 0);
+        ensureCapacity(1);
+        data[length++] = (byte) flags;
+        writeVarLong(zigzag(date - lastDate));
+        if ((flags & SCALE_FLAG) != 0) {
+            writeVarLong(zigzag(amount.scale()));
+        }
+        if (bigAmount) {
+            writeBigInteger(unscaled);
+        } else {
+            writeVarLong(unscaled.longValue());
+        }
+        if (explicitBalance) {
+            writeVarLong(zigzag(balance.scale()));
+            writeBigInteger(balance.unscaledValue());
+        }
+
+        count++;
+        lastDate = date;
+        lastScale = amount.scale();
+        lastBalance = balance;
+    }
+
+    @Override
+    public String print() {
+        StringBuilder builder = new StringBuilder();
+        for (Block block : blocks) {
+            decode(block.data, block.data.length, block.baseDate, block.baseBalance, builder);
+        }
+        decode(data, length, baseDate, baseBalance, builder);
+        return builder.toString();
+    }
+
+    /**
+     * @return The number of bytes used by the encoded operations
+     */
+    public int getEncodedSize() {
+        int size = length;
+        for (Block block : blocks) {
+            size += block.data.length;
+        }
+        return size;
+    }
+
+    /**
+     * Seal the current block and start a new one from the last operation
+     */
+    private void seal() {
+        blocks.add(new Block(baseDate, baseBalance, Arrays.copyOf(data, length)));
+        length = 0;
+        count = 0;
+        baseDate = lastDate;
+        baseBalance = lastBalance;
+        lastScale = 0;
+    }
+
+    private void decode(byte[] bytes, int end, long date, BigDecimal balance, StringBuilder builder) {
+        Reader reader = new Reader(bytes);
+        int scale = 0;
+        while (reader.position < end) {
+            int flags = bytes[reader.position++];
+            boolean deposit = (flags & DEPOSIT_FLAG) != 0;
+            date += unzigzag(reader.readVarLong());
+            if ((flags & SCALE_FLAG) != 0) {
+                scale = (int) unzigzag(reader.readVarLong());
+            }
+            BigDecimal amount = (flags & BIG_AMOUNT_FLAG) != 0
+                    ? new BigDecimal(reader.readBigInteger(), scale)
+                    : BigDecimal.valueOf(reader.readVarLong(), scale);
+            if ((flags & BALANCE_FLAG) != 0) {
+                int balanceScale = (int) unzigzag(reader.readVarLong());
+                balance = new BigDecimal(reader.readBigInteger(), balanceScale);
+            } else {
+                balance = deposit ? balance.add(amount) : balance.subtract(amount);
+            }
+
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(formatter.format(deposit, date, amount, balance));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private void writeBigInteger(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, data, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Cursor on an encoded block
+     */
+    private static class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = bytes[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        private BigInteger readBigInteger() {
+            int size = (int) readVarLong();
+            byte[] value = Arrays.copyOfRange(bytes, position, position + size);
+            position += size;
+            return new BigInteger(value);
+        }
+    }
+
+    /**
+     * Sealed block of operations
+     */
+    private static class Block {
+        private final long baseDate;
+        private final BigDecimal baseBalance;
+        private final byte[] data;
+
+        private Block(long baseDate, BigDecimal baseBalance, byte[] data) {
+            this.baseDate = baseDate;
+            this.baseBalance = baseBalance;
+            this.data = data;
+        }
+    }
+}
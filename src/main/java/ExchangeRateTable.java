@@ -0,0 +1,103 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local table of exchange rates, given against a base currency.
+ * The rate of each pair of currencies is computed once and cached, reads never lock. A new set of rates replaces the
+ * current one atomically, along with its cache, so a reader never mixes rates from two sets.
+ */
+public class ExchangeRateTable implements ExchangeRates {
+
+    /**
+     * Precision of the rates between two currencies which are not the base
+     */
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private volatile RateSet rates;
+
+    /**
+     * Create a table without any rate
+     */
+    public ExchangeRateTable() {
+        rates = new RateSet(null, Collections.emptyMap());
+    }
+
+    /**
+     * Create a table
+     *
+     * @param base  The base currency
+     * @param rates For each currency, how much of it one unit of the base currency is worth
+     * @throws IllegalArgumentException If the base is null or a rate is not positive
+     */
+    public ExchangeRateTable(Currency base, Map<Currency, BigDecimal> rates) {
+        setRates(base, rates);
+    }
+
+    /**
+     * Replace all the rates
+     *
+     * @param base  The base currency
+     * @param rates For each currency, how much of it one unit of the base currency is worth
+     * @throws IllegalArgumentException If the base is null or a rate is not positive
+     */
+    public void setRates(Currency base, Map<Currency, BigDecimal> rates) {
+        if (base == null || rates == null) {
+            throw new IllegalArgumentException("Unable to set the rates : Null base currency or rates");
+        }
+        Map<Currency, BigDecimal> fromBase = new HashMap<>(rates);
+        for (Map.Entry<Currency, BigDecimal> rate : fromBase.entrySet()) {
+            if (rate.getKey() == null || rate.getValue() == null || rate.getValue().signum() <= 0) {
+                throw new IllegalArgumentException("Unable to set the rates : Wrong rate for " + rate.getKey());
+            }
+        }
+        fromBase.put(base, BigDecimal.ONE);
+        this.rates = new RateSet(base, fromBase);
+    }
+
+    @Override
+    public BigDecimal getRate(Currency from, Currency to) {
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        RateSet current = rates;
+        Map<Currency, BigDecimal> cached = current.pairs.get(from);
+        if (cached != null) {
+            BigDecimal rate = cached.get(to);
+            if (rate != null) {
+                return rate;
+            }
+        }
+        return current.computePair(from, to);
+    }
+
+    /**
+     * Immutable set of rates with the cache of its pairs
+     */
+    private static class RateSet {
+        private final Currency base;
+        private final Map<Currency, BigDecimal> fromBase;
+        private final ConcurrentHashMap<Currency, ConcurrentHashMap<Currency, BigDecimal>> pairs =
+                new ConcurrentHashMap<>();
+
+        private RateSet(Currency base, Map<Currency, BigDecimal> fromBase) {
+            this.base = base;
+            this.fromBase = fromBase;
+        }
+
+        private BigDecimal computePair(Currency from, Currency to) {
+            BigDecimal fromRate = fromBase.get(from);
+            BigDecimal toRate = fromBase.get(to);
+            if (fromRate == null || toRate == null) {
+                return null;
+            }
+            BigDecimal rate = from.equals(base) ? toRate : toRate.divide(fromRate, PRECISION);
+            pairs.computeIfAbsent(from, currency -> new ConcurrentHashMap<>()).put(to, rate);
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Source of the exchange rates used to convert amounts between currencies
+ */
+@FunctionalInterface
+public interface ExchangeRates {
+
+    /**
+     * Give the rate to convert an amount from a currency to another one
+     *
+     * @param from The currency of the amount
+     * @param to   The wanted currency
+     * @return The rate, an amount in {@code from} multiplied by the rate gives the amount in {@code to},
+     * or null if the rate is unknown
+     */
+    BigDecimal getRate(Currency from, Currency to);
+}
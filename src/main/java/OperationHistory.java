@@ -0,0 +1,39 @@
+import java.math.BigDecimal;
+
+/**
+ * Storage of the operations of an account
+ */
+public interface OperationHistory {
+
+    /**
+     * Record an operation
+     *
+     * @param deposit true for a deposit, false for a withdrawal
+     * @param date    Date of the operation, in milliseconds since the epoch
+     * @param amount  Amount of the operation
+     * @param balance Balance of the account after the operation
+     */
+    void add(boolean deposit, long date, BigDecimal amount, BigDecimal balance);
+
+    /**
+     * Get operations
+     * @return A string with a description of operations, one per line
+     */
+    String print();
+
+    /**
+     * Describes one operation
+     */
+    @FunctionalInterface
+    interface Formatter {
+
+        /**
+         * @param deposit true for a deposit, false for a withdrawal
+         * @param date    Date of the operation, in milliseconds since the epoch
+         * @param amount  Amount of the operation
+         * @param balance Balance of the account after the operation
+         * @return The description of the operation
+         */
+        String format(boolean deposit, long date, BigDecimal amount, BigDecimal balance);
+    }
+}
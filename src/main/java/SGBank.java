@@ -1,16 +1,29 @@
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Currency;
+import java.util.Date;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.math.BigDecimal.ZERO;
 
 /**
  * Implementation of a bank
  */
-public class SGBank implements Bank {
+public class SGBank implements TransferParticipant {
 
     /**
      * Format of statements
@@ -19,25 +32,226 @@ public class SGBank implements Bank {
     private static final String WITHDRAWAL_TYPE = "W";
     private static final String DEPOSIT_TYPE = "D";
 
+    /**
+     * Currency of the accounts when none is given
+     */
+    private static final Currency DEFAULT_CURRENCY = Currency.getInstance("EUR");
+
+    /**
+     * Results of the check of an operation against the policy of its account
+     */
+    private static final int NO_VIOLATION = 0;
+    private static final int INSUFFICIENT_AMOUNT = 1;
+    private static final int DAILY_LIMIT = 2;
+    private static final int MAX_BALANCE = 3;
+
+    /**
+     * One day in milliseconds
+     */
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Number of clients from which a bulk creation is made in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * How the operations of the accounts are kept
+     */
+    public enum HistoryStorage {
+        /**
+         * Each operation is kept as its formatted statement
+         */
+        PLAIN,
+        /**
+         * Operations are kept as compressed blocks and formatted when printed, see {@link CompressedOperationHistory}
+         */
+        COMPRESSED
+    }
+
     /**
      * Date dispenser
      */
     private final DateFactory dateFactory;
 
     /**
-     * Date formatter
+     * Time zone of the statements and of the days of the daily limits
      */
-    private SimpleDateFormat dateFormat;
+    private final TimeZone timeZone;
 
     /**
-     * Clients managed by ths bank
+     * Date formatter, immutable so it can be shared between threads
      */
-    private Set<BankClient> clients;
+    private DateTimeFormatter dateFormat;
 
+    /**
+     * Storage of the operations of new accounts
+     */
+    private final HistoryStorage historyStorage;
+
+    /**
+     * Currency of the accounts created without currency
+     */
+    private final Currency defaultCurrency;
+
+    /**
+     * Rates used to convert an amount to the currency of an account
+     */
+    private final ExchangeRates exchangeRates;
+
+    /**
+     * Clients managed by ths bank. The set is replaced by a bigger one before a bulk creation
+     */
+    private volatile Set<BankClient> clients;
+
+    /**
+     * Number of clients the current set was sized for
+     */
+    private int clientsCapacity;
+
+    /**
+     * Shared by the creations of clients, exclusive for the replacement of the set of clients
+     */
+    private final ReadWriteLock clientsLock = new ReentrantReadWriteLock();
+
+    /**
+     * Account identifiers dispenser, identifiers give the locking order of a transfer
+     */
+    private final AtomicLong accountIds = new AtomicLong();
+
+    /**
+     * Client identifiers dispenser
+     */
+    private final AtomicLong clientIds = new AtomicLong();
+
+    /**
+     * Identifiers are numbered from the shard index with a step of the shard count, so that the shards of a bank
+     * never give the same identifier
+     */
+    private final int shard;
+    private final int shardCount;
+
+    /**
+     * Changes made on the accounts
+     */
+    private final BankEventStream events;
+
+    /**
+     * Create a bank of euro accounts without exchange rates, only amounts in the currency of their account are accepted
+     *
+     * @param dateFactory Date dispenser
+     */
     public SGBank(DateFactory dateFactory) {
+        this(dateFactory, HistoryStorage.PLAIN);
+    }
+
+    /**
+     * Create a bank of euro accounts without exchange rates, only amounts in the currency of their account are accepted
+     *
+     * @param dateFactory    Date dispenser
+     * @param historyStorage How the operations of the accounts are kept
+     */
+    public SGBank(DateFactory dateFactory, HistoryStorage historyStorage) {
+        this(dateFactory, historyStorage, DEFAULT_CURRENCY, new ExchangeRateTable());
+    }
+
+    /**
+     * @param dateFactory     Date dispenser
+     * @param historyStorage  How the operations of the accounts are kept
+     * @param defaultCurrency Currency of the accounts created without currency
+     * @param exchangeRates   Rates used to convert an amount to the currency of an account
+     */
+    public SGBank(DateFactory dateFactory, HistoryStorage historyStorage, Currency defaultCurrency,
+                  ExchangeRates exchangeRates) {
+        this(dateFactory, historyStorage, defaultCurrency, exchangeRates, new BankEventStream(), 0, 1);
+    }
+
+    /**
+     * Create a bank being a shard of a larger one : it publishes on a stream shared by the shards, and numbers its
+     * clients and accounts so that their identifiers are unique across the shards
+     *
+     * @param dateFactory     Date dispenser
+     * @param historyStorage  How the operations of the accounts are kept
+     * @param defaultCurrency Currency of the accounts created without currency
+     * @param exchangeRates   Rates used to convert an amount to the currency of an account
+     * @param events          Stream of the changes made on the accounts
+     * @param shard           Index of this shard, its identifiers are equal to it modulo the shard count
+     * @param shardCount      Number of shards
+     * @throws IllegalArgumentException If the shard is not between 0 and the shard count
+     */
+    public SGBank(DateFactory dateFactory, HistoryStorage historyStorage, Currency defaultCurrency,
+                  ExchangeRates exchangeRates, BankEventStream events, int shard, int shardCount) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Unable to create a bank : Wrong shard");
+        }
+        this.events = events;
+        this.shard = shard;
+        this.shardCount = shardCount;
         this.dateFactory = dateFactory;
-        dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-        clients = new HashSet<>();
+        this.historyStorage = historyStorage;
+        this.defaultCurrency = defaultCurrency;
+        this.exchangeRates = exchangeRates;
+        timeZone = TimeZone.getDefault();
+        dateFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy").withZone(timeZone.toZoneId());
+        clients = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Give the next identifier of a dispenser
+     * @param ids The dispenser
+     * @return The identifier, unique across the shards
+     */
+    private long nextId(AtomicLong ids) {
+        return ids.incrementAndGet() * shardCount + shard;
+    }
+
+    /**
+     * Give the stream of the changes made on the accounts of this bank
+     *
+     * @return The stream
+     */
+    public BankEventStream getEventStream() {
+        return events;
+    }
+
+    /**
+     * Format a statement
+     * @param deposit true for a deposit, false for a withdrawal
+     * @param date The date of the operation
+     * @param money The amount of the operation
+     * @param balance The balance after the operation
+     * @return The statement
+     */
+    private String formatStatement(boolean deposit, long date, BigDecimal money, BigDecimal balance) {
+        return String.format(STATEMENT_FORMAT, deposit ? DEPOSIT_TYPE : WITHDRAWAL_TYPE,
+                dateFormat.format(Instant.ofEpochMilli(date)), money, balance);
+    }
+
+    /**
+     * Give the day of a date, for the daily limits
+     * @param date The date
+     * @return The number of days since the epoch, in the time zone of the bank
+     */
+    private long day(Date date) {
+        long millis = date.getTime();
+        return Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MILLIS);
+    }
+
+    /**
+     * Give the error of an operation refused by the policy of its account
+     * @param violation The result of the check
+     * @param operation The refused operation (for the error message)
+     * @return The error to throw
+     */
+    private static IllegalStateException violation(int violation, String operation) {
+        switch (violation) {
+            case DAILY_LIMIT:
+                return new IllegalStateException("Unable to make a " + operation + " : Daily withdrawal limit reached");
+            case MAX_BALANCE:
+                return new IllegalStateException("Unable to make a " + operation + " : Maximum balance reached");
+            default:
+                return new IllegalStateException("Unable to make a " + operation + " : Insufficient account amount");
+        }
     }
 
     /**
@@ -53,6 +267,34 @@ public class SGBank implements Bank {
         }
     }
 
+    /**
+     * Convert an amount to the currency of an account
+     * @param money The amount
+     * @param from The currency of the amount
+     * @param to The currency of the account
+     * @param operation The operation to realize (for the error message)
+     * @return The amount in the currency of the account, rounded to its fraction digits
+     */
+    private BigDecimal convert(BigDecimal money, Currency from, Currency to, String operation) {
+        if (from == null) {
+            throw new IllegalArgumentException("Unable to make a " + operation + " : Null currency");
+        }
+        if (from.equals(to)) {
+            return money;
+        }
+        BigDecimal rate = exchangeRates.getRate(from, to);
+        if (rate == null) {
+            throw new IllegalArgumentException("Unable to make a " + operation + " : Unknown exchange rate");
+        }
+        BigDecimal converted = money.multiply(rate);
+        if (to.getDefaultFractionDigits() >= 0) {
+            converted = converted.setScale(to.getDefaultFractionDigits(), RoundingMode.HALF_EVEN);
+        }
+        // A tiny amount may be rounded to nothing
+        checkAmount(converted, operation);
+        return converted;
+    }
+
     /**
      * Check that the client is managed by this bank, and that this account belongs to the client
      * @param client The client to check
@@ -75,8 +317,33 @@ public class SGBank implements Bank {
         checkAmount(money, "deposit");
         checkClientAndAccount(client,account,"deposit");
 
+        deposit((SGBankAccount) account, money);
+    }
+
+    @Override
+    public void deposit(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+        checkAmount(money, "deposit");
+        checkClientAndAccount(client,account,"deposit");
+
         SGBankAccount sgBankAccount = (SGBankAccount) account;
-        sgBankAccount.deposit(money);
+        deposit(sgBankAccount, convert(money, currency, sgBankAccount.currency, "deposit"));
+    }
+
+    /**
+     * Make a checked deposit
+     * @param sgBankAccount The account
+     * @param money The amount, in the currency of the account
+     */
+    private void deposit(SGBankAccount sgBankAccount, BigDecimal money) {
+        synchronized (sgBankAccount) {
+            int violation = sgBankAccount.checkDeposit(money);
+            if (violation != NO_VIOLATION) {
+                throw violation(violation, "deposit");
+            }
+
+            sgBankAccount.deposit(money, dateFactory.getDate());
+        }
+        sgBankAccount.flushEvents();
     }
 
 
@@ -85,47 +352,230 @@ public class SGBank implements Bank {
         checkAmount(money, "withdrawal");
         checkClientAndAccount(client,account,"withdrawal");
 
+        withdrawal((SGBankAccount) account, money);
+    }
+
+    @Override
+    public void withdrawal(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+        checkAmount(money, "withdrawal");
+        checkClientAndAccount(client,account,"withdrawal");
+
         SGBankAccount sgBankAccount = (SGBankAccount) account;
+        withdrawal(sgBankAccount, convert(money, currency, sgBankAccount.currency, "withdrawal"));
+    }
+
+    /**
+     * Make a checked withdrawal
+     * @param sgBankAccount The account
+     * @param money The amount, in the currency of the account
+     */
+    private void withdrawal(SGBankAccount sgBankAccount, BigDecimal money) {
+        // The check and the withdrawal must be atomic, otherwise two concurrent withdrawals could both pass
+        synchronized (sgBankAccount) {
+            Date date = dateFactory.getDate();
+            long day = day(date);
+            int violation = sgBankAccount.checkWithdrawal(money, day);
+            if (violation != NO_VIOLATION) {
+                throw violation(violation, "withdrawal");
+            }
+
+            sgBankAccount.withdrawal(money, date, day);
+        }
+        sgBankAccount.flushEvents();
+    }
+
+    @Override
+    public void transfer(BankClient fromClient, BankAccount fromAccount, BankClient toClient, BankAccount toAccount,
+                         BigDecimal money) {
+        checkAmount(money, "transfer");
+        checkClientAndAccount(fromClient, fromAccount, "transfer");
+        checkClientAndAccount(toClient, toAccount, "transfer");
+        if (fromAccount == toAccount) {
+            throw new IllegalArgumentException("Unable to make a transfer : Same account");
+        }
 
-        if (sgBankAccount.getBalance().compareTo(money) < 0) {
-            throw new IllegalStateException("Unable to make a withdrawal : Insufficient account amount");
+        SGBankAccount from = (SGBankAccount) fromAccount;
+        SGBankAccount to = (SGBankAccount) toAccount;
+        BigDecimal converted = convert(money, from.currency, to.currency, "transfer");
+
+        // Both accounts are locked in the order of their identifiers so that opposite transfers cannot deadlock
+        SGBankAccount first = from.id < to.id ? from : to;
+        SGBankAccount second = first == from ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                // Both accounts are checked before any change
+                Date date = dateFactory.getDate();
+                long day = day(date);
+                int violation = from.checkWithdrawal(money, day);
+                if (violation == NO_VIOLATION) {
+                    violation = to.checkDeposit(converted);
+                }
+                if (violation != NO_VIOLATION) {
+                    throw violation(violation, "transfer");
+                }
+
+                from.withdrawal(money, date, day);
+                to.deposit(converted, date);
+            }
         }
+        from.flushEvents();
+        to.flushEvents();
+    }
 
-        sgBankAccount.withdrawal(money);
+    @Override
+    public Hold prepareDebit(BankClient client, BankAccount account, BigDecimal money) {
+        checkAmount(money, "transfer");
+        checkClientAndAccount(client, account, "transfer");
 
+        SGBankAccount sgBankAccount = (SGBankAccount) account;
+        long day;
+        synchronized (sgBankAccount) {
+            day = day(dateFactory.getDate());
+            int violation = sgBankAccount.checkWithdrawal(money, day);
+            if (violation != NO_VIOLATION) {
+                throw violation(violation, "transfer");
+            }
+
+            sgBankAccount.holdDebit(money, day);
+        }
+        return new AccountHold(sgBankAccount, false, money, day);
+    }
+
+    @Override
+    public Hold prepareCredit(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+        checkAmount(money, "transfer");
+        checkClientAndAccount(client, account, "transfer");
+
+        SGBankAccount sgBankAccount = (SGBankAccount) account;
+        BigDecimal converted = convert(money, currency, sgBankAccount.currency, "transfer");
+        synchronized (sgBankAccount) {
+            int violation = sgBankAccount.checkDeposit(converted);
+            if (violation != NO_VIOLATION) {
+                throw violation(violation, "transfer");
+            }
+
+            sgBankAccount.holdCredit(converted);
+        }
+        return new AccountHold(sgBankAccount, true, converted, 0);
     }
 
     @Override
     public BankAccount createAccount(BankClient client) {
+        return createAccount(client, defaultCurrency);
+    }
+
+    @Override
+    public BankAccount createAccount(BankClient client, Currency currency) {
         // Check that this client is managed in this bank
         if (!(client instanceof SGBankClient) || !clients.contains(client)){
             throw new IllegalArgumentException("Unable to create an account : Unknown client");
         }
-        BankAccount account = new SGBankAccount();
+        if (currency == null) {
+            throw new IllegalArgumentException("Unable to create an account : Null currency");
+        }
+        return newAccount((SGBankClient) client, currency);
+    }
 
-        SGBankAccount sgBankAccount = (SGBankAccount) account;
-        SGBankClient sgBankClient = (SGBankClient) client;
+    /**
+     * Create an account for a checked client
+     * @param sgBankClient The client
+     * @param currency The currency of the account
+     * @return The account
+     */
+    private BankAccount newAccount(SGBankClient sgBankClient, Currency currency) {
+        SGBankAccount sgBankAccount = new SGBankAccount(sgBankClient.id, currency);
 
         sgBankClient.add(sgBankAccount);
 
-        return account;
+        if (events.hasSubscribers()) {
+            // The account is not known by anyone else yet, its first event cannot be overtaken
+            events.publish(new BankEvent(BankEvent.Type.ACCOUNT_CREATED, sgBankClient.id, sgBankAccount.id, 0,
+                    currency, dateFactory.getDate(), ZERO, ZERO));
+        }
+
+        return sgBankAccount;
+    }
+
+    @Override
+    public void setAccountPolicy(BankClient client, BankAccount account, AccountPolicy policy) {
+        checkClientAndAccount(client, account, "policy change");
+        if (policy == null) {
+            throw new IllegalArgumentException("Unable to make a policy change : Null policy");
+        }
+        SGBankAccount sgBankAccount = (SGBankAccount) account;
+        synchronized (sgBankAccount) {
+            sgBankAccount.setPolicy(policy);
+        }
     }
 
     @Override
     public BankClient createClient() {
-        BankClient client = new SGBankClient();
-        clients.add(client);
+        BankClient client = new SGBankClient(0);
+        clientsLock.readLock().lock();
+        try {
+            clients.add(client);
+        } finally {
+            clientsLock.readLock().unlock();
+        }
         return client;
     }
 
+    @Override
+    public List<BankClient> createClients(int clientCount, int accountsPerClient) {
+        if (clientCount < 0 || accountsPerClient < 0) {
+            throw new IllegalArgumentException("Unable to create clients : Negative count");
+        }
+
+        // Clients are built outside of the registry, each one with a set sized for its accounts
+        IntStream indexes = IntStream.range(0, clientCount);
+        if (clientCount >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        List<BankClient> created = indexes.mapToObj(index -> {
+            SGBankClient client = new SGBankClient(accountsPerClient);
+            for (int i = 0; i < accountsPerClient; i++) {
+                newAccount(client, defaultCurrency);
+            }
+            return (BankClient) client;
+        }).collect(Collectors.toList());
+
+        clientsLock.writeLock().lock();
+        try {
+            int needed = clients.size() + clientCount;
+            if (needed > clientsCapacity) {
+                // Growing the registry once, at least doubling it so that repeated bulk creations stay linear
+                clientsCapacity = Math.max(needed, clientsCapacity * 2);
+                Set<BankClient> grown = ConcurrentHashMap.newKeySet(clientsCapacity);
+                grown.addAll(clients);
+                grown.addAll(created);
+                clients = grown;
+            } else {
+                clients.addAll(created);
+            }
+        } finally {
+            clientsLock.writeLock().unlock();
+        }
+        return created;
+    }
+
     /**
      * Implement of a bank client, it got a list of its accounts
      */
     private class SGBankClient implements BankClient {
+        private final long id;
         private Set<SGBankAccount> accounts;
 
-        private SGBankClient(){
-            accounts = new HashSet<>();
+        /**
+         * @param expectedAccounts Number of accounts the client will get, 0 if unknown
+         */
+        private SGBankClient(int expectedAccounts){
+            id = nextId(clientIds);
+            accounts = expectedAccounts > 0 ? ConcurrentHashMap.newKeySet(expectedAccounts) : ConcurrentHashMap.newKeySet();
+        }
+
+        @Override
+        public long getId() {
+            return id;
         }
 
         private boolean hasAccount(SGBankAccount account){
@@ -143,30 +593,228 @@ public class SGBank implements Bank {
     }
 
     /**
-     * Implementation of a bank account
+     * Implementation of a bank account, operations are guarded by the account monitor
      */
     private class SGBankAccount implements BankAccount {
 
-        private BigDecimal balance;
-        private List<String> operations;
-
-        private SGBankAccount() {
+        private final long id;
+        private final long clientId;
+        private final Currency currency;
+        private volatile BigDecimal balance;
+        private OperationHistory operations;
+
+        /**
+         * Limits of the operations, shared with the other accounts of the same policy
+         */
+        private AccountPolicy policy = AccountPolicy.DEFAULT;
+
+        /**
+         * Amounts reserved by prepared transfers : the debits may not be spent by another operation, the credits may
+         * not be taken by another deposit
+         */
+        private BigDecimal heldDebits = ZERO;
+        private BigDecimal heldCredits = ZERO;
+
+        /**
+         * Headroom of the account, updated on each change so that checking an operation only compares amounts and a
+         * refused operation allocates nothing : what can still be withdrawn without going below the lowest balance,
+         * and what can still be deposited without exceeding the maximum balance (null if unlimited). Both take the
+         * held amounts into account
+         */
+        private BigDecimal spendable;
+        private BigDecimal room;
+
+        /**
+         * Rolling counter of the daily withdrawal cap : the day it counts and what can still be withdrawn this day.
+         * It is only kept while the policy has a cap
+         */
+        private long withdrawalDay = Long.MIN_VALUE;
+        private BigDecimal remainingToday;
+
+        /**
+         * Number of the last change, and the events waiting to be published in this order
+         */
+        private long sequence;
+        private final Queue<BankEvent> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean publishing = new AtomicBoolean();
+
+        private SGBankAccount(long clientId, Currency currency) {
+            id = nextId(accountIds);
+            this.clientId = clientId;
+            this.currency = currency;
             balance = ZERO;
-            operations = new ArrayList<>();
+            operations = historyStorage == HistoryStorage.COMPRESSED
+                    ? new CompressedOperationHistory(SGBank.this::formatStatement)
+                    : new PlainOperationHistory();
+            updateHeadroom();
+        }
+
+        private void updateHeadroom() {
+            // Zero terms are skipped : with nothing held, no overdraft and no maximum balance, the usual case, the
+            // headroom is the balance itself and a write computes nothing
+            BigDecimal newSpendable = balance;
+            if (heldDebits.signum() != 0) {
+                newSpendable = newSpendable.subtract(heldDebits);
+            }
+            if (policy.lowestBalance.signum() != 0) {
+                newSpendable = newSpendable.subtract(policy.lowestBalance);
+            }
+            spendable = newSpendable;
+
+            if (policy.maxBalance == null) {
+                room = null;
+            } else if (heldCredits.signum() == 0) {
+                room = policy.maxBalance.subtract(balance);
+            } else {
+                room = policy.maxBalance.subtract(balance).subtract(heldCredits);
+            }
+        }
+
+        /**
+         * Check a deposit against the policy, without changing anything
+         * @param money The amount of the deposit
+         * @return The violated rule, or NO_VIOLATION
+         */
+        private int checkDeposit(BigDecimal money) {
+            if (room != null && money.compareTo(room) > 0) {
+                return MAX_BALANCE;
+            }
+            return NO_VIOLATION;
+        }
+
+        /**
+         * Check a withdrawal against the policy, without changing anything
+         * @param money The amount of the withdrawal
+         * @param day The day of the withdrawal
+         * @return The violated rule, or NO_VIOLATION
+         */
+        private int checkWithdrawal(BigDecimal money, long day) {
+            if (money.compareTo(spendable) > 0) {
+                return INSUFFICIENT_AMOUNT;
+            }
+            if (policy.dailyWithdrawalCap != null) {
+                BigDecimal remaining = day == withdrawalDay ? remainingToday : policy.dailyWithdrawalCap;
+                if (money.compareTo(remaining) > 0) {
+                    return DAILY_LIMIT;
+                }
+            }
+            return NO_VIOLATION;
+        }
+
+        private void setPolicy(AccountPolicy newPolicy) {
+            if (newPolicy.dailyWithdrawalCap == null) {
+                withdrawalDay = Long.MIN_VALUE;
+                remainingToday = null;
+            } else if (remainingToday != null && policy.dailyWithdrawalCap != null) {
+                // What was withdrawn today still counts against the new cap
+                remainingToday = remainingToday.add(newPolicy.dailyWithdrawalCap.subtract(policy.dailyWithdrawalCap));
+            }
+            policy = newPolicy;
+            updateHeadroom();
         }
 
-        private void deposit(BigDecimal money) {
+        private void deposit(BigDecimal money, Date date) {
             BigDecimal newBalance = balance.add(money);
-            operations.add(String.format(STATEMENT_FORMAT, DEPOSIT_TYPE, dateFormat.format(dateFactory.getDate()), money, newBalance));
+            operations.add(true, date.getTime(), money, newBalance);
 
             balance = newBalance;
+            updateHeadroom();
+            publish(BankEvent.Type.DEPOSIT, date, money, newBalance);
         }
 
-        private void withdrawal(BigDecimal money) {
+        private void withdrawal(BigDecimal money, Date date, long day) {
+            countWithdrawal(money, day);
+            recordWithdrawal(money, date);
+        }
+
+        /**
+         * Write a withdrawal already counted against the daily cap
+         */
+        private void recordWithdrawal(BigDecimal money, Date date) {
             BigDecimal newBalance = balance.subtract(money);
-            operations.add(String.format(STATEMENT_FORMAT, WITHDRAWAL_TYPE, dateFormat.format(dateFactory.getDate()), money, newBalance));
+            operations.add(false, date.getTime(), money, newBalance);
 
             balance = newBalance;
+            updateHeadroom();
+            publish(BankEvent.Type.WITHDRAWAL, date, money, newBalance);
+        }
+
+        private void countWithdrawal(BigDecimal money, long day) {
+            if (policy.dailyWithdrawalCap != null) {
+                BigDecimal remaining = day == withdrawalDay ? remainingToday : policy.dailyWithdrawalCap;
+                withdrawalDay = day;
+                remainingToday = remaining.subtract(money);
+            }
+        }
+
+        /**
+         * Reserve the debit of a prepared transfer, it counts against the daily cap of the day it was prepared
+         */
+        private void holdDebit(BigDecimal money, long day) {
+            heldDebits = heldDebits.add(money);
+            updateHeadroom();
+            countWithdrawal(money, day);
+        }
+
+        /**
+         * Reserve the room of the credit of a prepared transfer
+         */
+        private void holdCredit(BigDecimal money) {
+            heldCredits = heldCredits.add(money);
+            updateHeadroom();
+        }
+
+        /**
+         * Release the room of an aborted credit
+         */
+        private void releaseCredit(BigDecimal money) {
+            heldCredits = heldCredits.subtract(money);
+            updateHeadroom();
+        }
+
+        /**
+         * Release the debit of an aborted transfer, giving back its share of the daily cap if still counted
+         */
+        private void releaseDebit(BigDecimal money, long day) {
+            heldDebits = heldDebits.subtract(money);
+            updateHeadroom();
+            if (remainingToday != null && day == withdrawalDay) {
+                remainingToday = remainingToday.add(money);
+            }
+        }
+
+        /**
+         * Queue the event of an operation, under the account monitor so that it gets its sequence number. It is
+         * published by {@link #flushEvents()} once the monitor is released : a subscriber which blocks the writer may
+         * then call the bank without deadlocking
+         */
+        private void publish(BankEvent.Type type, Date date, BigDecimal money, BigDecimal newBalance) {
+            sequence++;
+            if (events.hasSubscribers()) {
+                outbox.add(new BankEvent(type, clientId, id, sequence, currency, date, money, newBalance));
+            }
+        }
+
+        /**
+         * Publish the queued events, outside of the account monitor. A single thread publishes at a time, in the
+         * order of the sequence numbers, the other ones leave their events to it
+         */
+        private void flushEvents() {
+            while (!outbox.isEmpty() && publishing.compareAndSet(false, true)) {
+                try {
+                    BankEvent event;
+                    while ((event = outbox.poll()) != null) {
+                        events.publish(event);
+                    }
+                } finally {
+                    publishing.set(false);
+                }
+            }
+        }
+
+        @Override
+        public long getId() {
+            return id;
         }
 
         @Override
@@ -175,8 +823,90 @@ public class SGBank implements Bank {
         }
 
         @Override
-        public String getOperations() {
-            return String.join("\n", operations);
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public synchronized String getOperations() {
+            return operations.print();
+        }
+    }
+
+    /**
+     * Amount reserved on an account by a prepared transfer, settled under the account monitor
+     */
+    private class AccountHold implements Hold {
+        private final SGBankAccount account;
+        private final boolean credit;
+        private final BigDecimal money;
+        private final long day;
+        private boolean settled;
+
+        /**
+         * @param account The account
+         * @param credit  true for a credit, false for a debit
+         * @param money   The amount, in the currency of the account
+         * @param day     The day the debit was prepared
+         */
+        private AccountHold(SGBankAccount account, boolean credit, BigDecimal money, long day) {
+            this.account = account;
+            this.credit = credit;
+            this.money = money;
+            this.day = day;
+        }
+
+        @Override
+        public void commit() {
+            synchronized (account) {
+                settle("commit");
+                Date date = dateFactory.getDate();
+                // The balance takes the held amount, the headroom is updated along
+                if (credit) {
+                    account.heldCredits = account.heldCredits.subtract(money);
+                    account.deposit(money, date);
+                } else {
+                    account.heldDebits = account.heldDebits.subtract(money);
+                    account.recordWithdrawal(money, date);
+                }
+            }
+            account.flushEvents();
+        }
+
+        @Override
+        public void abort() {
+            synchronized (account) {
+                settle("abort");
+                if (credit) {
+                    account.releaseCredit(money);
+                } else {
+                    account.releaseDebit(money, day);
+                }
+            }
+        }
+
+        private void settle(String operation) {
+            if (settled) {
+                throw new IllegalStateException("Unable to " + operation + " a transfer : Hold already settled");
+            }
+            settled = true;
+        }
+    }
+
+    /**
+     * History keeping the formatted statements
+     */
+    private class PlainOperationHistory implements OperationHistory {
+        private final List<String> statements = new ArrayList<>();
+
+        @Override
+        public void add(boolean deposit, long date, BigDecimal amount, BigDecimal balance) {
+            statements.add(formatStatement(deposit, date, amount, balance));
+        }
+
+        @Override
+        public String print() {
+            return String.join("\n", statements);
         }
     }
 }
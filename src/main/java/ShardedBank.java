@@ -0,0 +1,281 @@
+import com.google.common.hash.Hashing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bank partitioning its clients across several independent banks (shards).
+ * Each client gets a routing key which is hashed to choose its shard, every operation of the client is then routed
+ * to this shard. A transfer between two shards is made with a two-phase protocol driven by this facade, see
+ * {@link TransferParticipant} : both sides are prepared, which checks them and reserves the amount, before either one
+ * is changed.
+ */
+public class ShardedBank implements Bank {
+
+    /**
+     * Banks holding the clients
+     */
+    private final List<TransferParticipant> shards;
+
+    /**
+     * Routing keys dispenser, a key is hashed to choose the shard of a client
+     */
+    private final AtomicLong routingKeys = new AtomicLong();
+
+    /**
+     * Stream shared by the shards created by this bank, null when the shards were given
+     */
+    private final BankEventStream events;
+
+    /**
+     * @param shards The banks holding the clients, they must be empty, not used directly and give identifiers which
+     *               do not collide. Their changes are published on their own streams
+     * @throws IllegalArgumentException If there is no shard
+     */
+    public ShardedBank(List<? extends TransferParticipant> shards) {
+        this(shards, null);
+    }
+
+    private ShardedBank(List<? extends TransferParticipant> shards, BankEventStream events) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("Unable to create a sharded bank : No shard");
+        }
+        this.shards = new ArrayList<>(shards);
+        this.events = events;
+    }
+
+    /**
+     * Create a bank made of several {@link SGBank} without exchange rates, only amounts in the currency of their
+     * account are accepted
+     *
+     * @param dateFactory Date dispenser of the shards
+     * @param shardCount  Number of shards
+     * @throws IllegalArgumentException If there is no shard
+     */
+    public ShardedBank(DateFactory dateFactory, int shardCount) {
+        this(dateFactory, shardCount, Currency.getInstance("EUR"), new ExchangeRateTable());
+    }
+
+    /**
+     * Create a bank made of several {@link SGBank} sharing their exchange rates, so that every shard converts an
+     * amount the same way, and their event stream. Identifiers of clients and accounts are unique across the shards
+     *
+     * @param dateFactory     Date dispenser of the shards
+     * @param shardCount      Number of shards
+     * @param defaultCurrency Currency of the accounts created without currency
+     * @param exchangeRates   Rates used by every shard to convert an amount to the currency of an account
+     * @throws IllegalArgumentException If there is no shard
+     */
+    public ShardedBank(DateFactory dateFactory, int shardCount, Currency defaultCurrency,
+                       ExchangeRates exchangeRates) {
+        this(dateFactory, shardCount, defaultCurrency, exchangeRates, new BankEventStream());
+    }
+
+    private ShardedBank(DateFactory dateFactory, int shardCount, Currency defaultCurrency,
+                        ExchangeRates exchangeRates, BankEventStream events) {
+        this(createShards(dateFactory, shardCount, defaultCurrency, exchangeRates, events), events);
+    }
+
+    private static List<TransferParticipant> createShards(DateFactory dateFactory, int shardCount,
+                                                          Currency defaultCurrency, ExchangeRates exchangeRates,
+                                                          BankEventStream events) {
+        List<TransferParticipant> shards = new ArrayList<>(Math.max(shardCount, 0));
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new SGBank(dateFactory, SGBank.HistoryStorage.PLAIN, defaultCurrency, exchangeRates, events,
+                    i, shardCount));
+        }
+        return shards;
+    }
+
+    /**
+     * Give the stream of the changes made on the accounts of every shard
+     *
+     * @return The stream
+     * @throws IllegalStateException If the shards were given, their changes are then on their own streams
+     */
+    public BankEventStream getEventStream() {
+        if (events == null) {
+            throw new IllegalStateException("Unable to give the event stream : Shards have their own streams");
+        }
+        return events;
+    }
+
+    /**
+     * Give the client managed by this bank
+     * @param client The client to check
+     * @param operation The operation to realize (for the error message)
+     * @return The client
+     */
+    private ShardedClient checkClient(BankClient client, String operation) {
+        if (!(client instanceof ShardedClient) || !((ShardedClient) client).isManagedBy(this)) {
+            throw new IllegalArgumentException("Unable to " + operation + " : Unknown client");
+        }
+        return (ShardedClient) client;
+    }
+
+    @Override
+    public void deposit(BankClient client, BankAccount account, BigDecimal money) {
+        ShardedClient shardedClient = checkClient(client, "make a deposit");
+        shards.get(shardedClient.shard).deposit(shardedClient.delegate, account, money);
+    }
+
+    @Override
+    public void deposit(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+        ShardedClient shardedClient = checkClient(client, "make a deposit");
+        shards.get(shardedClient.shard).deposit(shardedClient.delegate, account, money, currency);
+    }
+
+    @Override
+    public void withdrawal(BankClient client, BankAccount account, BigDecimal money) {
+        ShardedClient shardedClient = checkClient(client, "make a withdrawal");
+        shards.get(shardedClient.shard).withdrawal(shardedClient.delegate, account, money);
+    }
+
+    @Override
+    public void withdrawal(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+        ShardedClient shardedClient = checkClient(client, "make a withdrawal");
+        shards.get(shardedClient.shard).withdrawal(shardedClient.delegate, account, money, currency);
+    }
+
+    @Override
+    public void transfer(BankClient fromClient, BankAccount fromAccount, BankClient toClient, BankAccount toAccount,
+                         BigDecimal money) {
+        ShardedClient from = checkClient(fromClient, "make a transfer");
+        ShardedClient to = checkClient(toClient, "make a transfer");
+
+        if (from.shard == to.shard) {
+            shards.get(from.shard).transfer(from.delegate, fromAccount, to.delegate, toAccount, money);
+            return;
+        }
+
+        TransferParticipant source = shards.get(from.shard);
+        TransferParticipant target = shards.get(to.shard);
+
+        // Prepare : the source reserves the debit, then the target checks the account, the exchange rate and its limits
+        // and reserves the credit. Nothing is written before both agreed : a refused prepare, an unknown rate
+        // included, only releases what was reserved
+        TransferParticipant.Hold debit = source.prepareDebit(from.delegate, fromAccount, money);
+        TransferParticipant.Hold credit;
+        try {
+            credit = target.prepareCredit(to.delegate, toAccount, money, fromAccount.getCurrency());
+        } catch (RuntimeException e) {
+            debit.abort();
+            throw e;
+        }
+
+        // Commit : both sides agreed, applying them cannot fail anymore
+        debit.commit();
+        credit.commit();
+    }
+
+    @Override
+    public void setAccountPolicy(BankClient client, BankAccount account, AccountPolicy policy) {
+        ShardedClient shardedClient = checkClient(client, "make a policy change");
+        shards.get(shardedClient.shard).setAccountPolicy(shardedClient.delegate, account, policy);
+    }
+
+    @Override
+    public BankAccount createAccount(BankClient client) {
+        ShardedClient shardedClient = checkClient(client, "create an account");
+        return shards.get(shardedClient.shard).createAccount(shardedClient.delegate);
+    }
+
+    @Override
+    public BankAccount createAccount(BankClient client, Currency currency) {
+        ShardedClient shardedClient = checkClient(client, "create an account");
+        return shards.get(shardedClient.shard).createAccount(shardedClient.delegate, currency);
+    }
+
+    @Override
+    public BankClient createClient() {
+        long routingKey = routingKeys.incrementAndGet();
+        int shard = Hashing.consistentHash(routingKey, shards.size());
+        return new ShardedClient(routingKey, shard, shards.get(shard).createClient());
+    }
+
+    @Override
+    public List<BankClient> createClients(int clientCount, int accountsPerClient) {
+        if (clientCount < 0 || accountsPerClient < 0) {
+            throw new IllegalArgumentException("Unable to create clients : Negative count");
+        }
+
+        // Routing the whole range of keys first, to know how many clients each shard creates
+        long firstKey = routingKeys.getAndAdd(clientCount) + 1;
+        int[] clientShards = new int[clientCount];
+        int[] counts = new int[shards.size()];
+        for (int i = 0; i < clientCount; i++) {
+            clientShards[i] = Hashing.consistentHash(firstKey + i, shards.size());
+            counts[clientShards[i]]++;
+        }
+
+        // Shards are independent, they create their clients in parallel
+        List<List<BankClient>> delegates = IntStream.range(0, shards.size()).parallel()
+                .mapToObj(shard -> shards.get(shard).createClients(counts[shard], accountsPerClient))
+                .collect(Collectors.toList());
+
+        int[] used = new int[shards.size()];
+        List<BankClient> created = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            int shard = clientShards[i];
+            created.add(new ShardedClient(firstKey + i, shard, delegates.get(shard).get(used[shard]++)));
+        }
+        return created;
+    }
+
+    /**
+     * Give the shard holding a client
+     *
+     * @param client The client
+     * @return The index of the shard
+     * @throws IllegalArgumentException If the client is unknown from this bank
+     */
+    public int getShard(BankClient client) {
+        return checkClient(client, "find a shard").shard;
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Client of a sharded bank, it wraps the client of its shard and has its identifier
+     */
+    private class ShardedClient implements BankClient {
+        private final long routingKey;
+        private final int shard;
+        private final BankClient delegate;
+
+        private ShardedClient(long routingKey, int shard, BankClient delegate) {
+            this.routingKey = routingKey;
+            this.shard = shard;
+            this.delegate = delegate;
+        }
+
+        private boolean isManagedBy(ShardedBank bank) {
+            return ShardedBank.this == bank;
+        }
+
+        @Override
+        public long getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public List<BankAccount> getAccounts() {
+            return delegate.getAccounts();
+        }
+
+        @Override
+        public String toString() {
+            return "ShardedClient " + getId() + " (key " + routingKey + ", shard " + shard + ")";
+        }
+    }
+}
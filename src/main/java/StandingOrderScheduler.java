@@ -0,0 +1,213 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.math.BigDecimal.ZERO;
+
+/**
+ * Executes standing orders : deposits and withdrawals made on a date, and repeated at a given period.
+ * Pending orders are held by a {@link TimingWheel}, so scheduling and cancelling an order are O(1) whatever the number
+ * of orders. The due orders are executed by batches through the {@link Bank} operations each time
+ * {@link #runDueOrders()} is called, the current time being given by a {@link DateFactory}.
+ */
+public class StandingOrderScheduler {
+
+    /**
+     * Default duration of a tick of the wheel : one minute
+     */
+    private static final long DEFAULT_TICK_MILLIS = 60_000;
+
+    /**
+     * Operation made by an order
+     */
+    public enum Type {
+        DEPOSIT, WITHDRAWAL
+    }
+
+    private final Bank bank;
+    private final DateFactory dateFactory;
+    private final long tickMillis;
+    private final TimingWheel<StandingOrder> wheel;
+
+    /**
+     * Due orders, reused between runs
+     */
+    private final List<StandingOrder> batch = new ArrayList<>();
+
+    /**
+     * @param bank        The bank executing the orders
+     * @param dateFactory The clock
+     */
+    public StandingOrderScheduler(Bank bank, DateFactory dateFactory) {
+        this(bank, dateFactory, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * @param bank        The bank executing the orders
+     * @param dateFactory The clock
+     * @param tickMillis  Precision of the execution dates, orders are executed at most one tick late
+     * @throws IllegalArgumentException If the tick is not positive
+     */
+    public StandingOrderScheduler(Bank bank, DateFactory dateFactory, long tickMillis) {
+        this.bank = bank;
+        this.dateFactory = dateFactory;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, dateFactory.getDate().getTime());
+    }
+
+    /**
+     * Schedule an order
+     *
+     * @param client       The client owning the account
+     * @param account      The account
+     * @param type         Deposit or withdrawal
+     * @param money        The amount of each execution
+     * @param first        Date of the first execution, a past date is executed on the next run
+     * @param periodMillis Time between two executions, 0 for a single execution
+     * @return The order
+     * @throws IllegalArgumentException If a parameter is null, the money is not positive or the period is negative
+     *                                  or shorter than a tick
+     */
+    public synchronized StandingOrder schedule(BankClient client, BankAccount account, Type type, BigDecimal money,
+                                               Date first, long periodMillis) {
+        if (client == null || account == null || type == null || first == null) {
+            throw new IllegalArgumentException("Unable to schedule an order : Missing parameter");
+        }
+        if (money == null || money.compareTo(ZERO) <= 0) {
+            throw new IllegalArgumentException("Unable to schedule an order : Amount must be positive");
+        }
+        if (periodMillis < 0 || (periodMillis > 0 && periodMillis < tickMillis)) {
+            throw new IllegalArgumentException("Unable to schedule an order : Wrong period");
+        }
+        StandingOrder order = new StandingOrder(client, account, type, money, first.getTime(), periodMillis);
+        order.timer = wheel.schedule(order.nextMillis, order);
+        return order;
+    }
+
+    /**
+     * Execute the orders which are due. Recurring orders are scheduled again, as many times as needed to catch up with
+     * the current time.
+     *
+     * @return The number of executions, failed ones included
+     */
+    public synchronized int runDueOrders() {
+        long now = dateFactory.getDate().getTime();
+        int executions = 0;
+        try {
+            wheel.advance(now, batch);
+            while (!batch.isEmpty()) {
+                for (StandingOrder order : batch) {
+                    order.execute();
+                    executions++;
+                    if (!order.cancelled && order.periodMillis > 0) {
+                        order.nextMillis += order.periodMillis;
+                        order.timer = wheel.schedule(order.nextMillis, order);
+                    }
+                }
+                batch.clear();
+                // Orders which were late are due again
+                wheel.advance(now, batch);
+            }
+        } finally {
+            // Orders left by an interrupted run already left the wheel, they must not be executed by the next run
+            batch.clear();
+        }
+        return executions;
+    }
+
+    /**
+     * @return The number of orders waiting for an execution
+     */
+    public synchronized int getPendingOrders() {
+        return wheel.size();
+    }
+
+    private synchronized boolean cancel(StandingOrder order) {
+        order.cancelled = true;
+        return order.timer != null && wheel.cancel(order.timer);
+    }
+
+    /**
+     * Scheduled order
+     */
+    public class StandingOrder {
+        private final BankClient client;
+        private final BankAccount account;
+        private final Type type;
+        private final BigDecimal money;
+        private final long periodMillis;
+        private long nextMillis;
+        private TimingWheel.Timer<StandingOrder> timer;
+        private boolean cancelled;
+        private long executions;
+        private long failures;
+
+        private StandingOrder(BankClient client, BankAccount account, Type type, BigDecimal money, long firstMillis,
+                              long periodMillis) {
+            this.client = client;
+            this.account = account;
+            this.type = type;
+            this.money = money;
+            this.nextMillis = firstMillis;
+            this.periodMillis = periodMillis;
+        }
+
+        private void execute() {
+            executions++;
+            try {
+                if (type == Type.DEPOSIT) {
+                    bank.deposit(client, account, money);
+                } else {
+                    bank.withdrawal(client, account, money);
+                }
+            } catch (IllegalStateException e) {
+                // Insufficient balance, the next executions may succeed
+                failures++;
+            } catch (IllegalArgumentException e) {
+                // Unknown client or account, the order can never succeed
+                failures++;
+                cancelled = true;
+            } catch (RuntimeException e) {
+                // Failure of the bank itself, it must not stop the other orders
+                failures++;
+            }
+        }
+
+        /**
+         * Cancel the next executions of this order
+         *
+         * @return true if an execution was pending
+         */
+        public boolean cancel() {
+            return StandingOrderScheduler.this.cancel(this);
+        }
+
+        /**
+         * @return true if the order was cancelled, by the user or because its account is unknown
+         */
+        public boolean isCancelled() {
+            synchronized (StandingOrderScheduler.this) {
+                return cancelled;
+            }
+        }
+
+        /**
+         * @return The number of executions, failed ones included
+         */
+        public long getExecutions() {
+            synchronized (StandingOrderScheduler.this) {
+                return executions;
+            }
+        }
+
+        /**
+         * @return The number of executions rejected by the bank
+         */
+        public long getFailures() {
+            synchronized (StandingOrderScheduler.this) {
+                return failures;
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel : timers are hashed by deadline into levels of 64 slots, each level covering 64 times the
+ * span of the previous one. Scheduling and cancelling a timer are O(1), a timer is moved to a lower level when the
+ * wheel reaches its slot. Deadlines beyond the last level wait in an overflow list. Moving the wheel costs the slots
+ * holding timers on the way, the empty ticks are skipped.
+ * The time is given by the caller, so the wheel can be driven by a simulated clock. This class is not thread safe.
+ *
+ * @param <T> Type of the payload of the timers
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    /**
+     * Lists which are not slots of a level
+     */
+    private static final int OVERFLOW = LEVELS;
+    private static final int DUE = LEVELS + 1;
+
+    /**
+     * Duration of a tick, in milliseconds
+     */
+    private final long tickMillis;
+
+    /**
+     * Heads of the lists of timers : the slots of each level, then the overflow list and the due list
+     */
+    private final Timer<T>[][] heads;
+
+    /**
+     * Last tick reached
+     */
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Duration of a tick, timers fire on the first tick at or after their deadline
+     * @param startMillis Time of the creation of the wheel
+     * @throws IllegalArgumentException If the tick is not positive
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Unable to create a timing wheel : Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        heads = new Timer[LEVELS + 2][];
+        for (int level = 0; level < LEVELS; level++) {
+            heads[level] = new Timer[SLOTS];
+        }
+        heads[OVERFLOW] = new Timer[1];
+        heads[DUE] = new Timer[1];
+    }
+
+    /**
+     * Schedule a timer
+     *
+     * @param deadlineMillis When the timer fires, a past deadline fires on the next advance
+     * @param payload        The payload given back when the timer fires
+     * @return The timer, to cancel it
+     */
+    public Timer<T> schedule(long deadlineMillis, T payload) {
+        Timer<T> timer = new Timer<>(payload, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancel a timer
+     *
+     * @param timer The timer
+     * @return true if the timer was pending, false if it already fired or was cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer.level < 0) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Move the wheel forward and give the payloads of the timers whose deadline is reached
+     *
+     * @param nowMillis The current time, a time before the last advance does nothing except firing the due timers
+     * @param due       Receives the payloads, in the order of their deadlines (and of their scheduling for the same
+     *                  tick)
+     */
+    public void advance(long nowMillis, List<T> due) {
+        fire(DUE, 0, due);
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        if (size == 0 && targetTick > currentTick) {
+            // Nothing can fire, no need to turn the wheel
+            currentTick = targetTick;
+            return;
+        }
+        while (currentTick < targetTick) {
+            // Ticks which neither cascade nor fire a timer are skipped, a long advance costs the occupied slots only
+            currentTick = Math.min(nextBusyTick(), targetTick);
+            // Higher levels are cascaded first so that their timers reach level 0 before it fires
+            if ((currentTick & ((1L << (SLOT_BITS * (LEVELS - 1))) - 1)) == 0) {
+                cascade(OVERFLOW, 0);
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, slot(currentTick, level));
+                }
+            }
+            // Cascaded timers of this very tick are put in the due list
+            fire(DUE, 0, due);
+            fire(0, slot(currentTick, 0), due);
+            if (size == 0) {
+                currentTick = targetTick;
+            }
+        }
+    }
+
+    /**
+     * @return The number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Give the first tick after the current one where a list of timers has to be cascaded or fired
+     *
+     * @return The tick, Long.MAX_VALUE if there is no timer
+     */
+    private long nextBusyTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            // A level is only visited every span ticks, one of its rotations covers every slot
+            long span = 1L << (SLOT_BITS * level);
+            long base = Math.floorDiv(currentTick, span);
+            for (int step = 1; step <= SLOTS; step++) {
+                long tick = (base + step) * span;
+                if (tick >= next) {
+                    break;
+                }
+                if (heads[level][slot(tick, level)] != null) {
+                    next = tick;
+                    break;
+                }
+            }
+        }
+        if (heads[OVERFLOW][0] != null) {
+            // The overflow list is cascaded on the boundaries of the last level, a timer leaves it once its deadline
+            // is within the span of the wheel
+            long earliest = Long.MAX_VALUE;
+            for (Timer<T> timer = heads[OVERFLOW][0]; timer != null; timer = timer.next) {
+                earliest = Math.min(earliest, timer.deadlineTick);
+            }
+            long span = 1L << (SLOT_BITS * (LEVELS - 1));
+            long from = Math.max(currentTick, earliest - (1L << (SLOT_BITS * LEVELS)));
+            next = Math.min(next, (Math.floorDiv(from, span) + 1) * span);
+        }
+        return next;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            link(timer, DUE, 0);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                link(timer, level, slot(timer.deadlineTick, level));
+                return;
+            }
+        }
+        link(timer, OVERFLOW, 0);
+    }
+
+    /**
+     * Insert again the timers of a list, they go to lower levels
+     */
+    private void cascade(int level, int slot) {
+        Timer<T> timer = heads[level][slot];
+        heads[level][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void fire(int level, int slot, List<T> due) {
+        Timer<T> timer = heads[level][slot];
+        heads[level][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            timer.level = -1;
+            size--;
+            due.add(timer.payload);
+            timer = next;
+        }
+    }
+
+    /**
+     * Append a timer to a list. The lists are kept in insertion order through the tail, held by the head's prev
+     */
+    private void link(Timer<T> timer, int level, int slot) {
+        Timer<T> head = heads[level][slot];
+        timer.level = level;
+        timer.slot = slot;
+        if (head == null) {
+            heads[level][slot] = timer;
+            timer.prev = timer;
+        } else {
+            Timer<T> tail = head.prev;
+            tail.next = timer;
+            timer.prev = tail;
+            head.prev = timer;
+        }
+    }
+
+    private void unlink(Timer<T> timer) {
+        Timer<T> head = heads[timer.level][timer.slot];
+        if (timer == head) {
+            Timer<T> next = timer.next;
+            if (next != null) {
+                next.prev = head.prev;
+            }
+            heads[timer.level][timer.slot] = next;
+        } else {
+            timer.prev.next = timer.next;
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            } else {
+                head.prev = timer.prev;
+            }
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+
+    /**
+     * Timer of a wheel, an intrusive node of the list of its slot
+     *
+     * @param <T> Type of the payload
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return true if the timer neither fired nor was cancelled
+         */
+        public boolean isPending() {
+            return level >= 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Bank able to take part in a transfer driven from outside, such as a transfer between two shards of a
+ * {@link ShardedBank}. The transfer follows a two-phase protocol : each side first prepares its part, which makes every
+ * check and reserves the amount without changing the balance nor the history, then every part is either committed or
+ * aborted. A committed part cannot fail anymore.
+ */
+public interface TransferParticipant extends Bank {
+
+    /**
+     * Prepare the debit of a transfer : the amount is reserved on the account, so that it can be neither withdrawn
+     * nor transferred by another operation until the hold is settled
+     *
+     * @param client  The client who owns the debited account
+     * @param account The debited account
+     * @param money   How much is transferred, in the currency of the account
+     * @return The hold of the amount, to be committed or aborted
+     * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client
+     *                                  or the money is negative
+     * @throws IllegalStateException    If the amount of the account is insufficient in comparison to the wanted amount
+     *                                  or the daily withdrawal cap of the account is reached
+     */
+    Hold prepareDebit(BankClient client, BankAccount account, BigDecimal money);
+
+    /**
+     * Prepare the credit of a transfer : the amount is converted and its room is reserved on the account, so that
+     * another operation cannot make the credit exceed the maximum balance of the account
+     *
+     * @param client   The client who owns the credited account
+     * @param account  The credited account
+     * @param money    How much is transferred
+     * @param currency The currency of the money, it is converted to the currency of the account
+     * @return The hold of the amount, to be committed or aborted
+     * @throws IllegalArgumentException If the client is unknown from this bank, the account is unknown from this client,
+     *                                  the money is negative or the exchange rate is unknown
+     * @throws IllegalStateException    If the balance would exceed the maximum balance of the account policy
+     */
+    Hold prepareCredit(BankClient client, BankAccount account, BigDecimal money, Currency currency);
+
+    /**
+     * Amount reserved on an account by a prepared part of a transfer
+     */
+    interface Hold {
+
+        /**
+         * Apply the reserved operation on the account, it is written in the history with the date of the commit
+         *
+         * @throws IllegalStateException If the hold is already settled
+         */
+        void commit();
+
+        /**
+         * Release the reserved amount, the account is left as if the transfer had never been prepared
+         *
+         * @throws IllegalStateException If the hold is already settled
+         */
+        void abort();
+    }
+}
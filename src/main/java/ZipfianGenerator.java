@@ -0,0 +1,75 @@
+import java.util.Random;
+
+/**
+ * Generates indexes in [0, n) following a Zipfian distribution, index 0 being the most popular one.
+ * Based on "Quickly Generating Billion-Record Synthetic Databases" (Gray et al.).
+ * The generator is immutable, the randomness is given by the caller so it can be shared between threads.
+ */
+public class ZipfianGenerator {
+
+    /**
+     * Number of items
+     */
+    private final int items;
+
+    /**
+     * Skew of the distribution, 0 means uniform
+     */
+    private final double theta;
+
+    private final double zetan;
+    private final double alpha;
+    private final double eta;
+
+    /**
+     * @param items Number of items, must be positive
+     * @param theta Skew of the distribution, 0 for a uniform distribution, 0.99 for a highly skewed one
+     * @throws IllegalArgumentException If the number of items is not positive or theta is not in [0, 1)
+     */
+    public ZipfianGenerator(int items, double theta) {
+        if (items <= 0) {
+            throw new IllegalArgumentException("Unable to create a zipfian generator : No items");
+        }
+        if (theta < 0 || theta >= 1) {
+            throw new IllegalArgumentException("Unable to create a zipfian generator : Theta must be in [0, 1)");
+        }
+        this.items = items;
+        this.theta = theta;
+        this.zetan = zeta(items, theta);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+    }
+
+    /**
+     * Sum of 1/i^theta for i in [1, n]
+     */
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    /**
+     * Give the next index
+     *
+     * @param random The random source
+     * @return An index in [0, items)
+     */
+    public int next(Random random) {
+        if (theta == 0 || items == 1) {
+            return random.nextInt(items);
+        }
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, theta)) {
+            return 1;
+        }
+        int index = (int) (items * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(index, items - 1);
+    }
+}
@@ -0,0 +1,140 @@
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Multi-currency accounts testing
+ */
+public class BankCurrencyTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+    private static final Currency GBP = Currency.getInstance("GBP");
+
+    private ExchangeRateTable rates;
+    private Bank bank;
+    private BankClient client;
+    private BankAccount account;
+
+    /**
+     * Setting up a bank with euro based rates, a client and an empty euro account
+     */
+    @Before
+    public void setUp() {
+        rates = new ExchangeRateTable(EUR, ImmutableMap.of(USD, new BigDecimal("1.25"), JPY, new BigDecimal("130")));
+        bank = new SGBank(() -> DATE, SGBank.HistoryStorage.PLAIN, EUR, rates);
+        client = bank.createClient();
+        account = bank.createAccount(client);
+    }
+
+    /**
+     * Checking the default currency of an account
+     */
+    @Test
+    public void defaultCurrency() {
+        assertThat(account.getCurrency()).isEqualTo(EUR);
+        Bank defaultBank = new SGBank(() -> DATE);
+        assertThat(defaultBank.createAccount(defaultBank.createClient()).getCurrency()).isEqualTo(EUR);
+    }
+
+    /**
+     * Making a deposit in dollars on a euro account.
+     * Expected the converted amount on the account
+     */
+    @Test
+    public void depositOtherCurrency() {
+        bank.deposit(client, account, BigDecimal.valueOf(100), USD);
+
+        assertThat(account.getBalance()).isEqualTo(new BigDecimal("80.00"));
+    }
+
+    /**
+     * Making a withdrawal in yens on a dollar account, through a cross rate.
+     * Expected the converted amount, rounded to cents, withdrawn from the account
+     */
+    @Test
+    public void withdrawalCrossRate() {
+        BankAccount dollarAccount = bank.createAccount(client, USD);
+        bank.deposit(client, dollarAccount, BigDecimal.valueOf(100));
+
+        bank.withdrawal(client, dollarAccount, BigDecimal.valueOf(1300), JPY);
+
+        assertThat(dollarAccount.getCurrency()).isEqualTo(USD);
+        assertThat(dollarAccount.getBalance()).isEqualTo(new BigDecimal("87.50"));
+    }
+
+    /**
+     * Making a transfer from a euro account to a yen account.
+     * Expected the converted amount, rounded to yens, on the credited account
+     */
+    @Test
+    public void transferOtherCurrency() {
+        BankAccount yenAccount = bank.createAccount(client, JPY);
+        bank.deposit(client, account, BigDecimal.valueOf(10));
+
+        bank.transfer(client, account, client, yenAccount, new BigDecimal("1.004"));
+
+        assertThat(account.getBalance()).isEqualTo(new BigDecimal("8.996"));
+        assertThat(yenAccount.getBalance()).isEqualTo(new BigDecimal("131"));
+    }
+
+    /**
+     * Replacing the rates, expected the new rates to be used at once
+     */
+    @Test
+    public void replaceRates() {
+        bank.deposit(client, account, BigDecimal.valueOf(100), USD);
+        rates.setRates(USD, ImmutableMap.of(EUR, new BigDecimal("0.5")));
+
+        bank.deposit(client, account, BigDecimal.valueOf(100), USD);
+
+        assertThat(account.getBalance()).isEqualTo(new BigDecimal("130.00"));
+        assertThat(rates.getRate(JPY, EUR)).isNull();
+    }
+
+    /**
+     * Making a deposit in a currency without rate.
+     * Expected an IllegalArgumentException and an untouched balance
+     */
+    @Test
+    public void unknownRate() {
+        assertThatThrownBy(() -> bank.deposit(client, account, BigDecimal.TEN, GBP))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a deposit : Unknown exchange rate");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.ZERO);
+    }
+
+    /**
+     * Making a deposit too small to be converted.
+     * Expected an IllegalArgumentException
+     */
+    @Test
+    public void roundedToNothing() {
+        assertThatThrownBy(() -> bank.deposit(client, account, new BigDecimal("0.001"), USD))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a deposit : Null amount");
+    }
+
+    /**
+     * Creating an account without currency, expected an IllegalArgumentException
+     */
+    @Test
+    public void createWithoutCurrency() {
+        assertThatThrownBy(() -> bank.createAccount(client, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to create an account : Null currency");
+    }
+}
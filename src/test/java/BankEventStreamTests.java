@@ -0,0 +1,257 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Change stream testing
+ */
+public class BankEventStreamTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+    private SGBank bank;
+    private BankClient client;
+
+    /**
+     * Setting up a bank and a client without account
+     */
+    @Before
+    public void setUp() {
+        bank = new SGBank(() -> DATE);
+        client = bank.createClient();
+    }
+
+    /**
+     * Subscribing then creating an account, making a deposit and a withdrawal.
+     * Expected the three events in order
+     */
+    @Test
+    public void operationsEvents() throws InterruptedException {
+        List<BankEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+        bank.getEventStream().subscribe(events -> {
+            received.addAll(events);
+            events.forEach(event -> latch.countDown());
+        }, 16, 4, BankEventStream.Overflow.BLOCK);
+
+        BankAccount account = bank.createAccount(client);
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+        bank.withdrawal(client, account, BigDecimal.valueOf(30));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).extracting(BankEvent::getType).containsExactly(
+                BankEvent.Type.ACCOUNT_CREATED, BankEvent.Type.DEPOSIT, BankEvent.Type.WITHDRAWAL);
+        assertThat(received).extracting(BankEvent::getAccountId).containsOnly(account.getId());
+        assertThat(received).extracting(BankEvent::getClientId).containsOnly(client.getId());
+        assertThat(received.get(1).getAmount()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(received.get(2).getBalance()).isEqualTo(BigDecimal.valueOf(70));
+        assertThat(received.get(2).getDate()).isEqualTo(DATE);
+    }
+
+    /**
+     * Moving a mutable clock after an operation.
+     * Expected the event to keep the date of the operation
+     */
+    @Test
+    public void eventDateCopied() throws InterruptedException {
+        Date now = new Date(0);
+        bank = new SGBank(() -> now);
+        client = bank.createClient();
+        BankAccount account = bank.createAccount(client);
+        List<BankEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        bank.getEventStream().subscribe(events -> {
+            received.addAll(events);
+            latch.countDown();
+        }, 16, 4, BankEventStream.Overflow.BLOCK);
+
+        bank.deposit(client, account, BigDecimal.TEN);
+        now.setTime(999_999_999);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received.get(0).getDate()).isEqualTo(new Date(0));
+    }
+
+    /**
+     * Filling the buffer of a blocked subscriber with the drop policy.
+     * Expected that the writer is not blocked and the extra events are counted as dropped
+     */
+    @Test
+    public void dropWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BankEventStream.Subscription subscription = bank.getEventStream().subscribe(events -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 2, 1, BankEventStream.Overflow.DROP);
+
+        BankAccount account = bank.createAccount(client);
+        // Waiting for the listener to hold the creation event
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            bank.deposit(client, account, BigDecimal.ONE);
+        }
+
+        assertThat(subscription.getDropped()).isEqualTo(8);
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(10));
+        release.countDown();
+        subscription.close();
+    }
+
+    /**
+     * Two writers making deposits on an account watched by a blocking subscriber with a tiny buffer, whose listener
+     * reads the account. Expected that the writers are not deadlocked and the events come in the order of the account
+     */
+    @Test
+    public void listenerCallsBank() throws InterruptedException {
+        BankAccount account = bank.createAccount(client);
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        BankEventStream.Subscription subscription = bank.getEventStream().subscribe(events -> {
+            for (BankEvent event : events) {
+                sequences.add(event.getSequence());
+                account.getOperations();
+            }
+        }, 1, 1, BankEventStream.Overflow.BLOCK);
+
+        Thread[] writers = new Thread[2];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    bank.deposit(client, account, BigDecimal.ONE);
+                }
+            });
+            writers[i].start();
+        }
+        for (Thread writer : writers) {
+            writer.join(5_000);
+            assertThat(writer.isAlive()).isFalse();
+        }
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(200));
+        subscription.close();
+        // The dispatcher may still be in the listener, checking a copy
+        assertThat(new ArrayList<>(sequences)).isSorted().doesNotHaveDuplicates();
+    }
+
+    /**
+     * A blocking subscriber with a tiny buffer whose listener charges a fee on another account for each deposit.
+     * Expected that neither the writer nor the listener is blocked, the events of the fees being dropped
+     */
+    @Test
+    public void listenerWritesToBank() throws InterruptedException {
+        BankAccount account = bank.createAccount(client);
+        BankAccount fees = bank.createAccount(client);
+        CountDownLatch charged = new CountDownLatch(20);
+        CountDownLatch release = new CountDownLatch(1);
+        BankEventStream.Subscription subscription = bank.getEventStream().subscribe(events -> {
+            try {
+                // Letting the writer fill the buffer
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (BankEvent event : events) {
+                // Fees are deposits of 2, they are not charged again
+                if (event.getType() == BankEvent.Type.DEPOSIT && event.getAmount().equals(BigDecimal.ONE)) {
+                    bank.deposit(client, fees, BigDecimal.valueOf(2));
+                    charged.countDown();
+                }
+            }
+        }, 1, 1, BankEventStream.Overflow.BLOCK);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                bank.deposit(client, account, BigDecimal.ONE);
+            }
+        });
+        writer.start();
+        Thread.sleep(200);
+        release.countDown();
+        writer.join(5_000);
+
+        assertThat(writer.isAlive()).isFalse();
+        assertThat(charged.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fees.getBalance()).isEqualTo(BigDecimal.valueOf(40));
+        assertThat(subscription.getDropped()).isPositive();
+        subscription.close();
+    }
+
+    /**
+     * Closing a blocking subscription whose listener never returns while writers wait for room.
+     * Expected that the writers give up and their accounts stay usable
+     */
+    @Test
+    public void closeReleasesWriters() throws InterruptedException {
+        List<BankAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            accounts.add(bank.createAccount(client));
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        BankEventStream.Subscription subscription = bank.getEventStream().subscribe(events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1, 1, BankEventStream.Overflow.BLOCK);
+
+        Thread[] writers = new Thread[accounts.size()];
+        for (int i = 0; i < writers.length; i++) {
+            BankAccount account = accounts.get(i);
+            writers[i] = new Thread(() -> bank.deposit(client, account, BigDecimal.ONE));
+            writers[i].start();
+        }
+        Thread.sleep(200);
+        subscription.close();
+
+        for (Thread writer : writers) {
+            writer.join(5_000);
+            assertThat(writer.isAlive()).isFalse();
+        }
+        for (BankAccount account : accounts) {
+            bank.deposit(client, account, BigDecimal.ONE);
+            assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(2));
+        }
+        release.countDown();
+    }
+
+    /**
+     * Closing a subscription, expected that the stream has no subscriber anymore
+     */
+    @Test
+    public void close() {
+        BankEventStream.Subscription subscription = bank.getEventStream()
+                .subscribe(events -> { }, 16, 4, BankEventStream.Overflow.BLOCK);
+        assertThat(bank.getEventStream().hasSubscribers()).isTrue();
+
+        subscription.close();
+
+        assertThat(bank.getEventStream().hasSubscribers()).isFalse();
+    }
+
+    /**
+     * Subscribing with an empty buffer, expected an IllegalArgumentException
+     */
+    @Test
+    public void wrongBuffer() {
+        assertThatThrownBy(() -> bank.getEventStream().subscribe(events -> { }, 0, 4, BankEventStream.Overflow.DROP))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to subscribe : Sizes must be positive");
+    }
+}
@@ -0,0 +1,92 @@
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compressed history testing
+ */
+public class BankHistoryTests {
+
+    /**
+     * One day in milliseconds
+     */
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Making the same operations on a bank keeping plain statements and on a bank keeping compressed ones.
+     * Expected the same printed operations, across several sealed blocks
+     */
+    @Test
+    public void sameStatements() {
+        Date date = new Date(0);
+        Bank plainBank = new SGBank(() -> date);
+        Bank compressedBank = new SGBank(() -> date, SGBank.HistoryStorage.COMPRESSED);
+        BankClient plainClient = plainBank.createClient();
+        BankAccount plainAccount = plainBank.createAccount(plainClient);
+        BankClient compressedClient = compressedBank.createClient();
+        BankAccount compressedAccount = compressedBank.createAccount(compressedClient);
+
+        assertThat(compressedAccount.getOperations()).isEmpty();
+
+        Random random = new Random(42);
+        for (int i = 0; i < CompressedOperationHistory.BLOCK_OPERATIONS * 3 + 17; i++) {
+            date.setTime(date.getTime() + random.nextInt(3) * DAY);
+            // Mixing scales, and a few huge amounts
+            BigDecimal money = i % 50 == 0
+                    ? new BigDecimal("123456789012345678901234567890.5")
+                    : BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(3));
+            if (i % 3 == 2 && plainAccount.getBalance().compareTo(money) >= 0) {
+                plainBank.withdrawal(plainClient, plainAccount, money);
+                compressedBank.withdrawal(compressedClient, compressedAccount, money);
+            } else {
+                plainBank.deposit(plainClient, plainAccount, money);
+                compressedBank.deposit(compressedClient, compressedAccount, money);
+            }
+        }
+
+        assertThat(compressedAccount.getOperations()).isEqualTo(plainAccount.getOperations());
+        assertThat(compressedAccount.getBalance()).isEqualTo(plainAccount.getBalance());
+    }
+
+    /**
+     * Recording small amounts on nearby dates.
+     * Expected a few bytes by operation, far less than the formatted statements
+     */
+    @Test
+    public void compression() {
+        CompressedOperationHistory history = new CompressedOperationHistory(
+                (deposit, date, amount, balance) -> (deposit ? "D" : "W") + " - " + date + " - " + amount + " - " + balance);
+        long date = 1_500_000_000_000L;
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < 1000; i++) {
+            date += DAY;
+            BigDecimal amount = BigDecimal.valueOf(1000 + i % 100, 2);
+            balance = balance.add(amount);
+            history.add(true, date, amount, balance);
+        }
+
+        assertThat(history.getEncodedSize()).isLessThan(1000 * 8);
+        assertThat(history.print().length()).isGreaterThan(1000 * 30);
+        assertThat(history.print().split("\n")).hasSize(1000).endsWith("D - " + date + " - 10.99 - " + balance);
+    }
+
+    /**
+     * Recording an operation whose balance is not implied by its amount.
+     * Expected the recorded balance to be printed
+     */
+    @Test
+    public void explicitBalance() {
+        CompressedOperationHistory history = new CompressedOperationHistory(
+                (deposit, date, amount, balance) -> amount + " " + balance);
+
+        history.add(true, 0, BigDecimal.TEN, BigDecimal.TEN);
+        history.add(false, 0, BigDecimal.ONE, BigDecimal.valueOf(-5, 1));
+        history.add(true, 0, BigDecimal.ONE, BigDecimal.valueOf(5, 1));
+
+        assertThat(history.print()).isEqualTo("10 10\n1 -0.5\n1 0.5");
+    }
+}
@@ -0,0 +1,196 @@
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Workload driver testing
+ */
+public class BankLoadGeneratorTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+
+    /**
+     * Running a concurrent workload against a SGBank.
+     * Expected a consistent bank : the balances are the net deposits and none is negative
+     */
+    @Test
+    public void concurrentWorkload() {
+        BankLoadGenerator.Report report = new BankLoadGenerator()
+                .clients(20)
+                .accountsPerClient(2)
+                .threads(4)
+                .operationsPerThread(5_000)
+                .run(new SGBank(() -> DATE));
+
+        assertThat(report.getOperations()).isEqualTo(20_000);
+        assertThat(report.getDeposits() + report.getWithdrawals() + report.getTransfers() + report.getRejected())
+                .isEqualTo(20_000);
+        assertThat(report.getErrors()).isZero();
+        assertThat(report.getNegativeBalances()).isZero();
+        assertThat(report.getTotalBalance()).isEqualByComparingTo(report.getNetDeposits());
+        assertThat(report.isConsistent()).isTrue();
+        assertThat(report.getLatencies().percentile(99)).isLessThanOrEqualTo(report.getLatencies().getMax());
+    }
+
+    /**
+     * Running the same single thread workload twice, on banks creating their clients in parallel.
+     * Expected the same balances, account by account
+     */
+    @Test
+    public void reproducibleRun() {
+        assertThat(singleThreadBalances()).isEqualTo(singleThreadBalances());
+    }
+
+    private List<BigDecimal> singleThreadBalances() {
+        Bank bank = new SGBank(() -> DATE);
+        List<BankClient> clients = new ArrayList<>();
+        new BankLoadGenerator()
+                .clients(2_000)
+                .threads(1)
+                .operationsPerThread(20_000)
+                .run(new Bank() {
+                    // Keeping the clients to read the balances afterwards
+                    @Override
+                    public List<BankClient> createClients(int clientCount, int accountsPerClient) {
+                        List<BankClient> created = bank.createClients(clientCount, accountsPerClient);
+                        clients.addAll(created);
+                        return created;
+                    }
+
+                    @Override
+                    public void deposit(BankClient client, BankAccount account, BigDecimal money) {
+                        bank.deposit(client, account, money);
+                    }
+
+                    @Override
+                    public void deposit(BankClient client, BankAccount account, BigDecimal money, Currency currency) {
+                        bank.deposit(client, account, money, currency);
+                    }
+
+                    @Override
+                    public void withdrawal(BankClient client, BankAccount account, BigDecimal money) {
+                        bank.withdrawal(client, account, money);
+                    }
+
+                    @Override
+                    public void withdrawal(BankClient client, BankAccount account, BigDecimal money,
+                                           Currency currency) {
+                        bank.withdrawal(client, account, money, currency);
+                    }
+
+                    @Override
+                    public void transfer(BankClient fromClient, BankAccount fromAccount, BankClient toClient,
+                                         BankAccount toAccount, BigDecimal money) {
+                        bank.transfer(fromClient, fromAccount, toClient, toAccount, money);
+                    }
+
+                    @Override
+                    public void setAccountPolicy(BankClient client, BankAccount account, AccountPolicy policy) {
+                        bank.setAccountPolicy(client, account, policy);
+                    }
+
+                    @Override
+                    public BankAccount createAccount(BankClient client) {
+                        return bank.createAccount(client);
+                    }
+
+                    @Override
+                    public BankAccount createAccount(BankClient client, Currency currency) {
+                        return bank.createAccount(client, currency);
+                    }
+
+                    @Override
+                    public BankClient createClient() {
+                        return bank.createClient();
+                    }
+                });
+
+        return clients.stream()
+                .flatMap(client -> client.getAccounts().stream())
+                .sorted(Comparator.comparingLong(BankAccount::getId))
+                .map(BankAccount::getBalance)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Running a workload against an engine failing with an unexpected exception.
+     * Expected every operation counted as an error and an inconsistent report
+     */
+    @Test
+    public void engineErrors() {
+        Bank failingBank = new SGBank(() -> DATE) {
+            @Override
+            public void transfer(BankClient fromClient, BankAccount fromAccount, BankClient toClient,
+                                 BankAccount toAccount, BigDecimal money) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        BankLoadGenerator.Report report = new BankLoadGenerator()
+                .clients(10)
+                .threads(2)
+                .operationsPerThread(100)
+                .mix(0, 0, 1)
+                .run(failingBank);
+
+        assertThat(report.getOperations()).isEqualTo(200);
+        assertThat(report.getErrors()).isEqualTo(200);
+        assertThat(report.getTotalBalance()).isEqualByComparingTo(report.getNetDeposits());
+        assertThat(report.isConsistent()).isFalse();
+    }
+
+    /**
+     * Running a workload without any operation.
+     * Expected an IllegalArgumentException
+     */
+    @Test
+    public void wrongMix() {
+        assertThatThrownBy(() -> new BankLoadGenerator().mix(0, 0, 0).run(new SGBank(() -> DATE)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to run the workload : Wrong operation mix");
+    }
+
+    /**
+     * Checking that a skewed distribution favours the first accounts
+     */
+    @Test
+    public void zipfianSkew() {
+        ZipfianGenerator zipfian = new ZipfianGenerator(1000, 0.99);
+        Random random = new Random(42);
+        int[] hits = new int[1000];
+        for (int i = 0; i < 100_000; i++) {
+            hits[zipfian.next(random)]++;
+        }
+        assertThat(hits[0]).isGreaterThan(hits[10]);
+        assertThat(hits[0]).isGreaterThan(100_000 / 1000 * 10);
+    }
+
+    /**
+     * Checking the percentiles of the latency histogram
+     */
+    @Test
+    public void latencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        // Buckets are precise to about 6%
+        assertThat(histogram.percentile(50)).isBetween(500_000L, 535_000L);
+        assertThat(histogram.percentile(100)).isEqualTo(1_000_000);
+    }
+}
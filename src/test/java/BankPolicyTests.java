@@ -0,0 +1,180 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Account policies testing : overdraft, daily withdrawal cap and maximum balance
+ */
+public class BankPolicyTests {
+
+    /**
+     * One day in milliseconds
+     */
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Simulated current date
+     */
+    private Date now;
+    private Bank bank;
+    private BankClient client;
+    private BankAccount account;
+
+    /**
+     * Setting up a bank, a client and an account with 100
+     */
+    @Before
+    public void setUp() {
+        now = new Date(10 * DAY);
+        bank = new SGBank(() -> now);
+        client = bank.createClient();
+        account = bank.createAccount(client);
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Withdrawing more than the balance with an overdraft limit.
+     * Expected a negative balance down to the limit, and no further
+     */
+    @Test
+    public void overdraft() {
+        bank.setAccountPolicy(client, account, new AccountPolicy(BigDecimal.valueOf(50), null, null));
+
+        bank.withdrawal(client, account, BigDecimal.valueOf(150));
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(-50));
+
+        assertThatThrownBy(() -> bank.withdrawal(client, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a withdrawal : Insufficient account amount");
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(-50));
+    }
+
+    /**
+     * Withdrawing more than the daily cap over a day, then on the next day.
+     * Expected a refused withdrawal, and the cap available again the next day
+     */
+    @Test
+    public void dailyWithdrawalCap() {
+        bank.setAccountPolicy(client, account, new AccountPolicy(BigDecimal.ZERO, BigDecimal.valueOf(30), null));
+
+        bank.withdrawal(client, account, BigDecimal.valueOf(20));
+        assertThatThrownBy(() -> bank.withdrawal(client, account, BigDecimal.valueOf(11)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a withdrawal : Daily withdrawal limit reached");
+        bank.withdrawal(client, account, BigDecimal.valueOf(10));
+
+        now = new Date(now.getTime() + DAY);
+        bank.withdrawal(client, account, BigDecimal.valueOf(30));
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(40));
+    }
+
+    /**
+     * Raising the daily cap after some withdrawals.
+     * Expected the former withdrawals of the day to still count
+     */
+    @Test
+    public void raiseDailyWithdrawalCap() {
+        bank.setAccountPolicy(client, account, new AccountPolicy(BigDecimal.ZERO, BigDecimal.valueOf(30), null));
+        bank.withdrawal(client, account, BigDecimal.valueOf(30));
+
+        bank.setAccountPolicy(client, account, new AccountPolicy(BigDecimal.ZERO, BigDecimal.valueOf(50), null));
+
+        bank.withdrawal(client, account, BigDecimal.valueOf(20));
+        assertThatThrownBy(() -> bank.withdrawal(client, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a withdrawal : Daily withdrawal limit reached");
+    }
+
+    /**
+     * Depositing above the maximum balance.
+     * Expected an IllegalStateException and an untouched balance
+     */
+    @Test
+    public void maxBalance() {
+        bank.setAccountPolicy(client, account, new AccountPolicy(BigDecimal.ZERO, null, BigDecimal.valueOf(150)));
+
+        bank.deposit(client, account, BigDecimal.valueOf(50));
+        assertThatThrownBy(() -> bank.deposit(client, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a deposit : Maximum balance reached");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(150));
+    }
+
+    /**
+     * Transferring to an account at its maximum balance.
+     * Expected an IllegalStateException and both accounts untouched
+     */
+    @Test
+    public void transferAboveMaxBalance() {
+        BankAccount otherAccount = bank.createAccount(client);
+        bank.setAccountPolicy(client, otherAccount, new AccountPolicy(BigDecimal.ZERO, null, BigDecimal.TEN));
+
+        assertThatThrownBy(() -> bank.transfer(client, account, client, otherAccount, BigDecimal.valueOf(11)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a transfer : Maximum balance reached");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.ZERO);
+    }
+
+    /**
+     * Transferring between two shards to an account at its maximum balance, from an account with a daily cap.
+     * Expected a transfer error, and the whole cap still available for the day
+     */
+    @Test
+    public void crossShardTransferAboveMaxBalance() {
+        ShardedBank shardedBank = new ShardedBank(() -> now, 4);
+        BankClient shardedClient = shardedBank.createClient();
+        BankClient otherClient;
+        do {
+            otherClient = shardedBank.createClient();
+        } while (shardedBank.getShard(otherClient) == shardedBank.getShard(shardedClient));
+        BankAccount shardedAccount = shardedBank.createAccount(shardedClient);
+        BankAccount otherAccount = shardedBank.createAccount(otherClient);
+        shardedBank.deposit(shardedClient, shardedAccount, BigDecimal.valueOf(100));
+        shardedBank.setAccountPolicy(shardedClient, shardedAccount,
+                new AccountPolicy(BigDecimal.ZERO, BigDecimal.valueOf(30), null));
+        shardedBank.setAccountPolicy(otherClient, otherAccount,
+                new AccountPolicy(BigDecimal.ZERO, null, BigDecimal.TEN));
+
+        BankClient target = otherClient;
+        assertThatThrownBy(() -> shardedBank.transfer(shardedClient, shardedAccount, target, otherAccount,
+                BigDecimal.valueOf(20)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a transfer : Maximum balance reached");
+
+        shardedBank.withdrawal(shardedClient, shardedAccount, BigDecimal.valueOf(15));
+        shardedBank.withdrawal(shardedClient, shardedAccount, BigDecimal.valueOf(15));
+        assertThat(shardedAccount.getBalance()).isEqualTo(BigDecimal.valueOf(70));
+        assertThat(shardedAccount.getOperations().split("\n")).hasSize(3);
+    }
+
+    /**
+     * Creating a policy with a negative overdraft, expected an IllegalArgumentException
+     */
+    @Test
+    public void negativeOverdraft() {
+        assertThatThrownBy(() -> new AccountPolicy(BigDecimal.valueOf(-1), null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to create a policy : Wrong overdraft limit");
+    }
+
+    /**
+     * Setting a policy on an account of another client, expected an IllegalArgumentException
+     */
+    @Test
+    public void policyWrongAccount() {
+        BankClient otherClient = bank.createClient();
+
+        assertThatThrownBy(() -> bank.setAccountPolicy(otherClient, account, AccountPolicy.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a policy change : Wrong account");
+    }
+}
@@ -0,0 +1,87 @@
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulk creation of clients and accounts testing
+ */
+public class BankProvisioningTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+
+    /**
+     * Creating many clients on a bank which already has one.
+     * Expected usable clients with their accounts, and the former client still known
+     */
+    @Test
+    public void createClients() {
+        Bank bank = new SGBank(() -> DATE);
+        BankClient former = bank.createClient();
+
+        List<BankClient> clients = bank.createClients(5_000, 3);
+
+        assertThat(clients).hasSize(5_000).doesNotHaveDuplicates();
+        Set<BankAccount> accounts = new HashSet<>();
+        for (BankClient client : clients) {
+            assertThat(client.getAccounts()).hasSize(3);
+            accounts.addAll(client.getAccounts());
+        }
+        assertThat(accounts).hasSize(15_000);
+
+        BankClient client = clients.get(4_321);
+        BankAccount account = client.getAccounts().get(0);
+        bank.deposit(client, account, BigDecimal.TEN);
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.TEN);
+        assertThat(bank.createAccount(former)).isNotNull();
+
+        // A second bulk creation grows the registry again
+        BankClient last = bank.createClients(10, 0).get(9);
+        assertThat(last.getAccounts()).isEmpty();
+        assertThat(bank.createAccount(last)).isNotNull();
+    }
+
+    /**
+     * Creating many clients on a sharded bank.
+     * Expected usable clients spread across the shards
+     */
+    @Test
+    public void createShardedClients() {
+        ShardedBank bank = new ShardedBank(() -> DATE, 4);
+
+        List<BankClient> clients = bank.createClients(2_000, 2);
+
+        int[] shards = new int[bank.getShardCount()];
+        for (BankClient client : clients) {
+            assertThat(client.getAccounts()).hasSize(2);
+            shards[bank.getShard(client)]++;
+        }
+        assertThat(shards).doesNotContain(0);
+
+        BankClient client = clients.get(0);
+        BankClient otherClient = clients.get(1_999);
+        bank.deposit(client, client.getAccounts().get(0), BigDecimal.TEN);
+        bank.transfer(client, client.getAccounts().get(0), otherClient, otherClient.getAccounts().get(1),
+                BigDecimal.ONE);
+        assertThat(otherClient.getAccounts().get(1).getBalance()).isEqualTo(BigDecimal.ONE);
+    }
+
+    /**
+     * Creating a negative number of clients, expected an IllegalArgumentException
+     */
+    @Test
+    public void negativeCount() {
+        assertThatThrownBy(() -> new SGBank(() -> DATE).createClients(-1, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to create clients : Negative count");
+    }
+}
@@ -0,0 +1,263 @@
+import com.google.common.collect.ImmutableMap;
+import org.assertj.core.util.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sharded bank testing
+ */
+public class BankShardingTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+    private ShardedBank bank;
+
+    /**
+     * Setting up a bank of 4 shards
+     */
+    @Before
+    public void setUp() {
+        bank = new ShardedBank(() -> DATE, 4);
+    }
+
+    /**
+     * Creating clients, expected that they are spread across every shard
+     */
+    @Test
+    public void clientsSpread() {
+        int[] clients = new int[bank.getShardCount()];
+        for (int i = 0; i < 1000; i++) {
+            clients[bank.getShard(bank.createClient())]++;
+        }
+        assertThat(clients).doesNotContain(0);
+    }
+
+    /**
+     * Making a deposit and a withdrawal through the facade
+     */
+    @Test
+    public void depositAndWithdrawal() {
+        BankClient client = bank.createClient();
+        BankAccount account = bank.createAccount(client);
+        assertThat(client.getAccounts()).isEqualTo(Lists.newArrayList(account));
+
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+        bank.withdrawal(client, account, BigDecimal.valueOf(40));
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(60));
+    }
+
+    /**
+     * Making a transfer between two clients on different shards.
+     * Expected that the money moves from a shard to the other
+     */
+    @Test
+    public void crossShardTransfer() {
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(otherClient);
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+
+        bank.transfer(client, account, otherClient, otherAccount, BigDecimal.valueOf(30));
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(70));
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.valueOf(30));
+    }
+
+    /**
+     * Making a transfer between two shards with an insufficient balance.
+     * Expected an IllegalStateException and untouched balances
+     */
+    @Test
+    public void crossShardTransferNotEnoughMoney() {
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(otherClient);
+
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, otherAccount, BigDecimal.ONE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a transfer : Insufficient account amount");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.ZERO);
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.ZERO);
+    }
+
+    /**
+     * Making a transfer between two shards to an account which does not belong to the credited client.
+     * Expected an IllegalArgumentException and an untouched source account
+     */
+    @Test
+    public void crossShardTransferWrongAccount() {
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(bank.createClient());
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, otherAccount, BigDecimal.ONE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a transfer : Wrong account");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(account.getOperations().split("\n")).hasSize(1);
+    }
+
+    /**
+     * Making a transfer between two shards to an account at its maximum balance.
+     * Expected an IllegalStateException, untouched balances and nothing written in the source history
+     */
+    @Test
+    public void crossShardTransferRefusedByTarget() {
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(otherClient);
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+        bank.setAccountPolicy(otherClient, otherAccount, new AccountPolicy(BigDecimal.ZERO, null, BigDecimal.TEN));
+
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, otherAccount, BigDecimal.valueOf(20)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a transfer : Maximum balance reached");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.ZERO);
+        assertThat(account.getOperations().split("\n")).hasSize(1);
+        assertThat(otherAccount.getOperations()).isEmpty();
+    }
+
+    /**
+     * Making a transfer between a euro account and a dollar account on different shards sharing their rates.
+     * Expected the converted amount on the target, and a refused transfer once the rate is unknown
+     */
+    @Test
+    public void crossShardTransferOtherCurrency() {
+        ExchangeRateTable rates = new ExchangeRateTable(EUR, ImmutableMap.of(USD, new BigDecimal("1.25")));
+        bank = new ShardedBank(() -> DATE, 4, EUR, rates);
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(otherClient, USD);
+        bank.deposit(client, account, BigDecimal.valueOf(100));
+
+        bank.transfer(client, account, otherClient, otherAccount, BigDecimal.valueOf(20));
+        assertThat(otherAccount.getBalance()).isEqualTo(new BigDecimal("25.00"));
+
+        rates.setRates(EUR, ImmutableMap.of());
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, otherAccount, BigDecimal.valueOf(20)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a transfer : Unknown exchange rate");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(80));
+        assertThat(account.getOperations().split("\n")).hasSize(2);
+        assertThat(otherAccount.getBalance()).isEqualTo(new BigDecimal("25.00"));
+    }
+
+    /**
+     * Creating accounts on every shard and making a cross-shard transfer while subscribed to the bank.
+     * Expected identifiers unique across the shards, and events carrying the ones of the clients and accounts
+     */
+    @Test
+    public void identifiersAndEvents() throws InterruptedException {
+        List<BankEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+        bank.getEventStream().subscribe(events -> {
+            for (BankEvent event : events) {
+                if (event.getType() != BankEvent.Type.ACCOUNT_CREATED) {
+                    received.add(event);
+                    latch.countDown();
+                }
+            }
+        }, 16, 4, BankEventStream.Overflow.BLOCK);
+
+        Set<Long> accountIds = new HashSet<>();
+        Set<Long> clientIds = new HashSet<>();
+        for (BankClient created : bank.createClients(200, 2)) {
+            clientIds.add(created.getId());
+            created.getAccounts().forEach(createdAccount -> accountIds.add(createdAccount.getId()));
+        }
+        assertThat(clientIds).hasSize(200);
+        assertThat(accountIds).hasSize(400);
+
+        BankClient client = bank.createClient();
+        BankClient otherClient = createClientOnOtherShard(client);
+        BankAccount account = bank.createAccount(client);
+        BankAccount otherAccount = bank.createAccount(otherClient);
+        bank.deposit(client, account, BigDecimal.TEN);
+        bank.transfer(client, account, otherClient, otherAccount, BigDecimal.ONE);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received.get(0).getAccountId()).isEqualTo(account.getId());
+        assertThat(received.get(0).getClientId()).isEqualTo(client.getId());
+        assertThat(received.get(1).getAccountId()).isIn(account.getId(), otherAccount.getId());
+    }
+
+    /**
+     * Asking the stream of a bank made of given shards, expected an IllegalStateException
+     */
+    @Test
+    public void givenShardsStream() {
+        ShardedBank givenShards = new ShardedBank(Lists.newArrayList(new SGBank(() -> DATE)));
+
+        assertThatThrownBy(givenShards::getEventStream)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to give the event stream : Shards have their own streams");
+    }
+
+    /**
+     * Using a client of a shard directly.
+     * Expected an IllegalArgumentException
+     */
+    @Test
+    public void unknownClient() {
+        BankClient client = new SGBank(() -> DATE).createClient();
+
+        assertThatThrownBy(() -> bank.createAccount(client))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to create an account : Unknown client");
+    }
+
+    /**
+     * Running a concurrent workload on the sharded bank, expected a consistent bank
+     */
+    @Test
+    public void concurrentWorkload() {
+        BankLoadGenerator.Report report = new BankLoadGenerator()
+                .clients(40)
+                .threads(4)
+                .operationsPerThread(5_000)
+                .run(bank);
+
+        assertThat(report.isConsistent()).isTrue();
+    }
+
+    /**
+     * Create clients until one is not on the same shard as the given one
+     */
+    private BankClient createClientOnOtherShard(BankClient client) {
+        BankClient otherClient;
+        do {
+            otherClient = bank.createClient();
+        } while (bank.getShard(otherClient) == bank.getShard(client));
+        return otherClient;
+    }
+}
@@ -0,0 +1,232 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Standing orders testing, with a simulated clock
+ */
+public class BankStandingOrderTests {
+
+    /**
+     * One day in milliseconds
+     */
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Simulated current date
+     */
+    private Date now;
+    private Bank bank;
+    private BankClient client;
+    private BankAccount account;
+    private StandingOrderScheduler scheduler;
+
+    /**
+     * Setting up a bank, a client with an empty account and a scheduler sharing the clock of the bank
+     */
+    @Before
+    public void setUp() {
+        now = new Date(0);
+        bank = new SGBank(() -> now);
+        client = bank.createClient();
+        account = bank.createAccount(client);
+        scheduler = new StandingOrderScheduler(bank, () -> now);
+    }
+
+    /**
+     * Scheduling a daily deposit and moving the clock.
+     * Expected one deposit for each elapsed day, none before its date
+     */
+    @Test
+    public void recurringDeposit() {
+        StandingOrderScheduler.StandingOrder order = scheduler.schedule(client, account,
+                StandingOrderScheduler.Type.DEPOSIT, BigDecimal.TEN, new Date(DAY), DAY);
+
+        now.setTime(DAY - 1);
+        assertThat(scheduler.runDueOrders()).isZero();
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.ZERO);
+
+        now.setTime(DAY);
+        assertThat(scheduler.runDueOrders()).isEqualTo(1);
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.TEN);
+
+        // Catching up three days at once
+        now.setTime(4 * DAY);
+        assertThat(scheduler.runDueOrders()).isEqualTo(3);
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(40));
+        assertThat(order.getExecutions()).isEqualTo(4);
+        assertThat(scheduler.getPendingOrders()).isEqualTo(1);
+    }
+
+    /**
+     * Scheduling a withdrawal on an empty account.
+     * Expected a failed execution, and a successful one once the account is funded
+     */
+    @Test
+    public void withdrawalNotEnoughMoney() {
+        StandingOrderScheduler.StandingOrder order = scheduler.schedule(client, account,
+                StandingOrderScheduler.Type.WITHDRAWAL, BigDecimal.ONE, new Date(DAY), DAY);
+
+        now.setTime(DAY);
+        scheduler.runDueOrders();
+        assertThat(order.getFailures()).isEqualTo(1);
+
+        bank.deposit(client, account, BigDecimal.TEN);
+        now.setTime(2 * DAY);
+        scheduler.runDueOrders();
+        assertThat(order.getFailures()).isEqualTo(1);
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(9));
+    }
+
+    /**
+     * Cancelling an order, expected no more execution
+     */
+    @Test
+    public void cancel() {
+        StandingOrderScheduler.StandingOrder order = scheduler.schedule(client, account,
+                StandingOrderScheduler.Type.DEPOSIT, BigDecimal.TEN, new Date(DAY), DAY);
+
+        assertThat(order.cancel()).isTrue();
+        assertThat(order.cancel()).isFalse();
+
+        now.setTime(10 * DAY);
+        assertThat(scheduler.runDueOrders()).isZero();
+        assertThat(scheduler.getPendingOrders()).isZero();
+        assertThat(order.isCancelled()).isTrue();
+    }
+
+    /**
+     * Scheduling an order on an account of another bank.
+     * Expected a failed execution and a cancelled order
+     */
+    @Test
+    public void unknownAccount() {
+        Bank otherBank = new SGBank(() -> now);
+        BankClient otherClient = otherBank.createClient();
+        StandingOrderScheduler.StandingOrder order = scheduler.schedule(otherClient,
+                otherBank.createAccount(otherClient), StandingOrderScheduler.Type.DEPOSIT, BigDecimal.TEN, now, DAY);
+
+        scheduler.runDueOrders();
+
+        assertThat(order.getFailures()).isEqualTo(1);
+        assertThat(order.isCancelled()).isTrue();
+        assertThat(scheduler.getPendingOrders()).isZero();
+    }
+
+    /**
+     * Scheduling three deposits on a bank failing with an unexpected exception on the second one.
+     * Expected the failure counted on its order and the other deposits made, nothing left for the next run
+     */
+    @Test
+    public void failingBank() {
+        Bank failingBank = new SGBank(() -> now) {
+            private int deposits;
+
+            @Override
+            public void deposit(BankClient client, BankAccount account, BigDecimal money) {
+                if (++deposits == 2) {
+                    throw new NullPointerException();
+                }
+                super.deposit(client, account, money);
+            }
+        };
+        BankClient failingClient = failingBank.createClient();
+        BankAccount failingAccount = failingBank.createAccount(failingClient);
+        StandingOrderScheduler failingScheduler = new StandingOrderScheduler(failingBank, () -> now);
+        List<StandingOrderScheduler.StandingOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orders.add(failingScheduler.schedule(failingClient, failingAccount, StandingOrderScheduler.Type.DEPOSIT,
+                    BigDecimal.ONE, now, 0));
+        }
+
+        assertThat(failingScheduler.runDueOrders()).isEqualTo(3);
+        assertThat(orders.stream().mapToLong(StandingOrderScheduler.StandingOrder::getFailures).sum()).isEqualTo(1);
+        assertThat(failingAccount.getBalance()).isEqualTo(BigDecimal.valueOf(2));
+        assertThat(failingScheduler.runDueOrders()).isZero();
+        assertThat(failingScheduler.getPendingOrders()).isZero();
+    }
+
+    /**
+     * Scheduling an order with a negative amount, expected an IllegalArgumentException
+     */
+    @Test
+    public void negativeAmount() {
+        assertThatThrownBy(() -> scheduler.schedule(client, account, StandingOrderScheduler.Type.DEPOSIT,
+                BigDecimal.valueOf(-1), now, DAY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to schedule an order : Amount must be positive");
+    }
+
+    /**
+     * Scheduling random timers over every level of the wheel, some of them cancelled, and moving by random steps.
+     * Expected that each timer fires on the first advance at or after its deadline
+     */
+    @Test
+    public void wheelDeadlines() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        Map<Long, TimingWheel.Timer<Long>> timers = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Deadlines up to 2^26 ticks, beyond the last level
+            long deadline = random.nextInt(1 << 26);
+            if (!timers.containsKey(deadline)) {
+                timers.put(deadline, wheel.schedule(deadline, deadline));
+            }
+        }
+        List<Long> cancelled = new ArrayList<>();
+        for (Map.Entry<Long, TimingWheel.Timer<Long>> timer : timers.entrySet()) {
+            if (random.nextInt(10) == 0 && wheel.cancel(timer.getValue())) {
+                cancelled.add(timer.getKey());
+            }
+        }
+
+        List<Long> fired = new ArrayList<>();
+        List<Long> due = new ArrayList<>();
+        long time = 0;
+        long previous = -1;
+        while (wheel.size() > 0) {
+            time += random.nextInt(50_000);
+            wheel.advance(time, due);
+            for (Long deadline : due) {
+                assertThat(deadline).isGreaterThan(previous).isLessThanOrEqualTo(time);
+            }
+            fired.addAll(due);
+            due.clear();
+            previous = time;
+        }
+
+        assertThat(fired).hasSize(timers.size() - cancelled.size()).doesNotContainAnyElementsOf(cancelled);
+    }
+
+    /**
+     * Scheduling a few timers years apart on a wheel of one millisecond ticks and moving far at once.
+     * Expected the timers fired in order without turning the wheel tick by tick
+     */
+    @Test(timeout = 5_000)
+    public void wheelLongAdvance() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule(1_000_000_000_001L, 1_000_000_000_001L);
+        wheel.schedule(1_000_000_000_000L, 1_000_000_000_000L);
+        wheel.schedule(3_000_000_000_000L, 3_000_000_000_000L);
+
+        List<Long> due = new ArrayList<>();
+        wheel.advance(999_999_999_999L, due);
+        assertThat(due).isEmpty();
+        wheel.advance(2_000_000_000_000L, due);
+        assertThat(due).containsExactly(1_000_000_000_000L, 1_000_000_000_001L);
+        due.clear();
+        wheel.advance(4_000_000_000_000L, due);
+        assertThat(due).containsExactly(3_000_000_000_000L);
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,146 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bank transfers tests
+ */
+public class BankTransferTests {
+
+    /**
+     * Default date
+     */
+    private static final Date DATE = new Date(0);
+    private Bank bank;
+    private BankClient client;
+    private BankAccount account;
+    private BankClient otherClient;
+    private BankAccount otherAccount;
+
+    /**
+     * Setting up a bank, a client with a 10000 account and another client with an empty account
+     */
+    @Before
+    public void setUp() {
+        bank = new SGBank(() -> DATE);
+        client = bank.createClient();
+        account = bank.createAccount(client);
+        bank.deposit(client, account, BigDecimal.valueOf(10000));
+        otherClient = bank.createClient();
+        otherAccount = bank.createAccount(otherClient);
+    }
+
+    /**
+     * Trying to make a transfer with right amount between accounts of two clients of the bank.
+     * Expected that the amount moves from an account to the other
+     */
+    @Test
+    public void transferMoney() {
+        BigDecimal moneyToTransfer = BigDecimal.valueOf(123.4);
+
+        bank.transfer(client, account, otherClient, otherAccount, moneyToTransfer);
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(10000).subtract(moneyToTransfer));
+        assertThat(otherAccount.getBalance()).isEqualTo(moneyToTransfer);
+        assertThat(account.getOperations().split("\n")).hasSize(2);
+        assertThat(otherAccount.getOperations()).startsWith("D - ");
+    }
+
+    /**
+     * Trying to make a transfer with an amount higher than the balance.
+     * Expected an IllegalStateException and untouched balances
+     */
+    @Test
+    public void transferNotEnoughMoney() {
+        assertThatThrownBy(() -> bank.transfer(otherClient, otherAccount, client, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a transfer : Insufficient account amount");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(10000));
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.ZERO);
+    }
+
+    /**
+     * Trying to make a transfer to the debited account.
+     * Expected an IllegalArgumentException
+     */
+    @Test
+    public void transferSameAccount() {
+        assertThatThrownBy(() -> bank.transfer(client, account, client, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a transfer : Same account");
+    }
+
+    /**
+     * Trying to make a transfer to an account which does not belong to the credited client.
+     * Expected an IllegalArgumentException and an untouched balance
+     */
+    @Test
+    public void transferWrongAccount() {
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, account, BigDecimal.ONE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a transfer : Wrong account");
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(10000));
+    }
+
+    /**
+     * Trying to make a transfer with a negative amount.
+     * Expected an IllegalArgumentException
+     */
+    @Test
+    public void transferNegativeMoney() {
+        assertThatThrownBy(() -> bank.transfer(client, account, otherClient, otherAccount, BigDecimal.valueOf(-1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unable to make a transfer : Negative amount");
+    }
+
+    /**
+     * Preparing the debit of a transfer, then aborting it.
+     * Expected the amount unavailable while held, and the account untouched once released
+     */
+    @Test
+    public void holdDebit() {
+        SGBank sgBank = (SGBank) bank;
+        TransferParticipant.Hold debit = sgBank.prepareDebit(client, account, BigDecimal.valueOf(9000));
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(10000));
+        assertThatThrownBy(() -> bank.withdrawal(client, account, BigDecimal.valueOf(1001)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to make a withdrawal : Insufficient account amount");
+
+        debit.abort();
+        bank.withdrawal(client, account, BigDecimal.valueOf(1001));
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(8999));
+        assertThat(account.getOperations().split("\n")).hasSize(2);
+        assertThatThrownBy(debit::commit)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to commit a transfer : Hold already settled");
+    }
+
+    /**
+     * Preparing both sides of a transfer, then committing them.
+     * Expected the amount moved and written in both histories
+     */
+    @Test
+    public void commitHolds() {
+        SGBank sgBank = (SGBank) bank;
+        TransferParticipant.Hold debit = sgBank.prepareDebit(client, account, BigDecimal.TEN);
+        TransferParticipant.Hold credit = sgBank.prepareCredit(otherClient, otherAccount, BigDecimal.TEN,
+                account.getCurrency());
+
+        debit.commit();
+        credit.commit();
+
+        assertThat(account.getBalance()).isEqualTo(BigDecimal.valueOf(9990));
+        assertThat(otherAccount.getBalance()).isEqualTo(BigDecimal.TEN);
+        assertThat(account.getOperations().split("\n")[1]).startsWith("W - ");
+        assertThat(otherAccount.getOperations()).startsWith("D - ");
+    }
+}